@@ -0,0 +1,21 @@
+package com.wsss.debuger.loadtest;
+
+import com.wsss.debuger.annotation.Debuger;
+import org.springframework.stereotype.Service;
+
+/**
+ * 压测目标Bean
+ * 客户端上下文中被代理并转发到服务端，服务端上下文中直接执行
+ */
+@Debuger
+@Service("echoService")
+public class EchoService {
+
+    public Payload echo(Payload payload) {
+        return payload;
+    }
+
+    public int size(Payload payload) {
+        return payload.getData() != null ? payload.getData().length : 0;
+    }
+}
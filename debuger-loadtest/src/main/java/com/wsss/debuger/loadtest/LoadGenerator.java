@@ -0,0 +1,160 @@
+package com.wsss.debuger.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 开环定速压测驱动
+ * 每个请求都有按固定速率排定的计划发送时间，延迟从计划时间而非实际发送时间开始计算，
+ * 因此被测系统变慢导致的排队时间会计入延迟，避免协调遗漏（coordinated omission）
+ */
+public class LoadGenerator {
+
+    private final EchoService service;
+    private final int rate;
+    private final int concurrency;
+    private final Payload[] payloads;
+
+    /**
+     * @param service 被代理的目标Bean
+     * @param rate 每秒请求数
+     * @param concurrency 并发工作线程数，即同时在途请求数上限
+     * @param payloads 预先生成的参数，按序号轮流使用，避免在计时路径上构造参数
+     */
+    public LoadGenerator(EchoService service, int rate, int concurrency, Payload[] payloads) {
+        this.service = service;
+        this.rate = rate;
+        this.concurrency = concurrency;
+        this.payloads = payloads;
+    }
+
+    /**
+     * 按固定速率运行指定时长
+     * @param durationSeconds 运行时长（秒）
+     * @return 压测结果
+     */
+    public Result run(int durationSeconds) throws InterruptedException {
+        final long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        final long total = (long) rate * durationSeconds;
+        final AtomicLong sequence = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong dropped = new AtomicLong();
+        // 自动扩容的直方图：过载时按计划时间计算的延迟可能远超预期，不能有固定上限
+        final Recorder recorder = new Recorder(3);
+        final CountDownLatch done = new CountDownLatch(concurrency);
+        final long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+
+        Map<Long, Long> allocatedBefore = threadAllocatedBytes();
+        for (int i = 0; i < concurrency; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    long n;
+                    while ((n = sequence.getAndIncrement()) < total) {
+                        long intended = start + n * interval;
+                        long now;
+                        while ((now = System.nanoTime()) < intended) {
+                            LockSupport.parkNanos(intended - now);
+                        }
+                        try {
+                            service.echo(payloads[(int) (n % payloads.length)]);
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        try {
+                            recorder.recordValue(Math.max(0, System.nanoTime() - intended));
+                        } catch (RuntimeException e) {
+                            // 记录失败不能让工作线程退出，否则并发度降低且丢失的恰是尾部样本
+                            dropped.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "loadtest-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedSince(allocatedBefore);
+
+        return new Result(recorder.getIntervalHistogram(), total, errors.get(), dropped.get(), elapsed, allocated);
+    }
+
+    /**
+     * 各存活线程已分配的字节数
+     * 包括内嵌Tomcat的工作线程，期间结束的线程会漏计
+     */
+    private static Map<Long, Long> threadAllocatedBytes() {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] ids = bean.getAllThreadIds();
+        long[] bytes = bean.getThreadAllocatedBytes(ids);
+        Map<Long, Long> result = new HashMap<>(ids.length * 2);
+        for (int i = 0; i < ids.length; i++) {
+            if (bytes[i] >= 0) {
+                result.put(ids[i], bytes[i]);
+            }
+        }
+        return result;
+    }
+
+    private static long allocatedSince(Map<Long, Long> before) {
+        long total = 0;
+        for (Map.Entry<Long, Long> entry : threadAllocatedBytes().entrySet()) {
+            Long previous = before.get(entry.getKey());
+            total += entry.getValue() - (previous != null ? previous : 0);
+        }
+        return total;
+    }
+
+    /**
+     * 压测结果
+     */
+    public static class Result {
+
+        private final Histogram histogram;
+        private final long requests;
+        private final long errors;
+        private final long dropped;
+        private final long elapsedNanos;
+        private final long allocatedBytes;
+
+        Result(Histogram histogram, long requests, long errors, long dropped, long elapsedNanos,
+               long allocatedBytes) {
+            this.histogram = histogram;
+            this.requests = requests;
+            this.errors = errors;
+            this.dropped = dropped;
+            this.elapsedNanos = elapsedNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public String format() {
+            double seconds = elapsedNanos / 1e9;
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("请求数: %d, 失败: %d, 未记录样本: %d, 耗时: %.2fs%n",
+                    requests, errors, dropped, seconds));
+            sb.append(String.format("吞吐量: %.1f ops/s%n", requests / seconds));
+            sb.append(String.format("分配速率: %.1f MB/s, 每次调用: %d B%n",
+                    allocatedBytes / seconds / (1024 * 1024), requests > 0 ? allocatedBytes / requests : 0));
+            sb.append("延迟(ms，已校正协调遗漏):\n");
+            for (double percentile : new double[]{50, 90, 99, 99.9, 99.99}) {
+                sb.append(String.format("  p%-6s %10.3f%n", percentile, histogram.getValueAtPercentile(percentile) / 1e6));
+            }
+            sb.append(String.format("  max     %10.3f%n", histogram.getMaxValue() / 1e6));
+            return sb.toString();
+        }
+
+        public Histogram getHistogram() {
+            return histogram;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.wsss.debuger.loadtest;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 端到端压测入口
+ * 在同一JVM内启动 mode=server 的内嵌Tomcat上下文和 mode=client 的客户端上下文，
+ * 经由 代理 -> DebugerInvocationHandler -> HTTP -> DebugerController -> 目标Bean 的完整路径施压。
+ *
+ * 用法（先在根目录执行 mvn install）：
+ * mvn -q compile exec:java -Dexec.args="rate=2000 duration=30 warmup=10 concurrency=32 payload=medium"
+ *
+ * 参数：rate 每秒请求数，duration/warmup 秒数，concurrency 工作线程数，
+ * payload 参数形态（small|medium|large|repeated），dictionary 是否启用对象字典，log 日志级别
+ */
+public class LoadTest {
+
+    private static final String PASSWORD = "loadtest";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int rate = Integer.parseInt(options.getOrDefault("rate", "1000"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+        String shape = options.getOrDefault("payload", "small");
+        String dictionary = options.getOrDefault("dictionary", "true");
+        String logLevel = options.getOrDefault("log", "warn");
+
+        ConfigurableApplicationContext server = new SpringApplicationBuilder(LoadTestApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .properties("wsss.debuger.mode=server",
+                        "wsss.debuger.proxy.password=" + PASSWORD,
+                        "server.port=0",
+                        "logging.level.com.wsss.debuger=" + logLevel)
+                .run();
+        int port = ((ServletWebServerApplicationContext) server).getWebServer().getPort();
+
+        ConfigurableApplicationContext client = new SpringApplicationBuilder(LoadTestApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("wsss.debuger.mode=client",
+                        "wsss.debuger.proxy.enable=true",
+                        "wsss.debuger.proxy.password=" + PASSWORD,
+                        "wsss.debuger.proxy.url=http://127.0.0.1:" + port + "/debuger/invoke",
+                        "wsss.debuger.dictionary.enable=" + dictionary,
+                        "logging.level.com.wsss.debuger=" + logLevel)
+                .run();
+
+        try {
+            EchoService service = client.getBean(EchoService.class);
+            Payload[] payloads = createPayloads(shape);
+            System.out.printf("压测配置: rate=%d/s, duration=%ds, warmup=%ds, concurrency=%d, payload=%s, dictionary=%s%n",
+                    rate, duration, warmup, concurrency, shape, dictionary);
+
+            if (warmup > 0) {
+                new LoadGenerator(service, rate, concurrency, payloads).run(warmup);
+                System.out.println("预热完成");
+            }
+            LoadGenerator.Result result = new LoadGenerator(service, rate, concurrency, payloads).run(duration);
+            System.out.print(result.format());
+        } finally {
+            client.close();
+            server.close();
+        }
+    }
+
+    /**
+     * repeated形态每次调用使用同一个大对象，其余形态轮流使用一批不同的对象
+     */
+    private static Payload[] createPayloads(String shape) {
+        if ("repeated".equals(shape)) {
+            return new Payload[]{Payload.of(shape, 0)};
+        }
+        Payload[] payloads = new Payload[64];
+        for (int i = 0; i < payloads.length; i++) {
+            payloads[i] = Payload.of(shape, i);
+        }
+        return payloads;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (index <= 0) {
+                throw new IllegalArgumentException("参数格式应为 key=value: " + arg);
+            }
+            options.put(arg.substring(0, index), arg.substring(index + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,11 @@
+package com.wsss.debuger.loadtest;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * 压测用Spring Boot应用
+ * 服务端和客户端上下文共用此配置，通过wsss.debuger.mode区分角色
+ */
+@SpringBootApplication(scanBasePackages = "com.wsss.debuger")
+public class LoadTestApplication {
+}
@@ -0,0 +1,77 @@
+package com.wsss.debuger.loadtest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 压测请求参数
+ */
+public class Payload {
+
+    private long id;
+    private String name;
+    private List<String> tags;
+    private Map<String, Long> attributes;
+    private byte[] data;
+
+    public Payload() {
+    }
+
+    /**
+     * 按形态构造参数
+     * small: 仅基本字段；medium: 100个标签和属性；large: 5000个属性和64KB二进制数据
+     */
+    public static Payload of(String shape, long id) {
+        Payload payload = new Payload();
+        payload.id = id;
+        payload.name = "payload-" + id;
+        int entries;
+        int dataSize;
+        if ("small".equals(shape)) {
+            return payload;
+        } else if ("medium".equals(shape)) {
+            entries = 100;
+            dataSize = 0;
+        } else if ("large".equals(shape) || "repeated".equals(shape)) {
+            entries = 5000;
+            dataSize = 64 * 1024;
+        } else {
+            throw new IllegalArgumentException("未知的参数形态: " + shape);
+        }
+        payload.tags = new ArrayList<>(entries);
+        payload.attributes = new HashMap<>(entries * 2);
+        for (int i = 0; i < entries; i++) {
+            payload.tags.add("tag-" + i);
+            payload.attributes.put("attr-" + i, id + i);
+        }
+        if (dataSize > 0) {
+            payload.data = new byte[dataSize];
+            for (int i = 0; i < dataSize; i++) {
+                payload.data[i] = (byte) (i + id);
+            }
+        }
+        return payload;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public Map<String, Long> getAttributes() {
+        return attributes;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+}
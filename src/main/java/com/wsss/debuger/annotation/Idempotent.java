@@ -0,0 +1,15 @@
+package com.wsss.debuger.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Idempotent注解
+ * 标记被代理类中可以安全重复执行的方法，开启对冲请求后这些方法的远程调用在响应过慢时会被重复发送
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Idempotent {
+}
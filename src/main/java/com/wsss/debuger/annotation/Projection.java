@@ -0,0 +1,21 @@
+package com.wsss.debuger.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Projection注解
+ * 声明远程调用只需要返回值中的部分字段，服务端只序列化列出的路径，客户端得到部分填充的对象。
+ * 路径以点号分隔嵌套字段，如 {"id", "owner.name"}；集合、数组和Map的值按元素应用同一路径
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Projection {
+
+    /**
+     * @return 需要保留的字段路径
+     */
+    String[] value();
+}
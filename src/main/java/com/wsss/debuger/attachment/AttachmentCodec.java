@@ -0,0 +1,338 @@
+package com.wsss.debuger.attachment;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 带外附件编解码
+ * 帧结构：int信封长度、信封（protostuff序列化的请求或响应）、依次排列的附件；
+ * 每个附件为 byte类型、long长度、数据。附件数量通过请求头/响应头传递，没有附件时帧即为信封本身。
+ * byte[]和ByteBuffer超过阈值时才作为附件发送；File、Path、InputStream无法按值序列化，总是作为附件发送。
+ * 客户端收到的File、Path返回值指向临时文件，归调用方所有，使用完毕后由调用方删除
+ */
+public class AttachmentCodec {
+
+    public static final byte KIND_BYTES = 0;
+    public static final byte KIND_BUFFER = 1;
+    public static final byte KIND_FILE = 2;
+    public static final byte KIND_PATH = 3;
+    public static final byte KIND_STREAM = 4;
+
+    private static final String TEMP_PREFIX = "debuger-attachment-";
+
+    /**
+     * 将参数中的大块二进制数据替换为附件引用
+     * @param args 原始参数，不会被修改
+     * @param attachments 收集待发送的附件
+     * @param minSize byte[]和ByteBuffer作为附件发送的最小字节数
+     * @param tempDir 暂存InputStream的目录
+     * @return 替换后的参数，无需替换时返回原数组
+     * @throws IOException 暂存InputStream失败
+     */
+    public static Object[] extract(Object[] args, List<OutboundAttachment> attachments, int minSize, File tempDir)
+            throws IOException {
+        if (args == null) {
+            return null;
+        }
+        Object[] extracted = null;
+        for (int i = 0; i < args.length; i++) {
+            Object value = extract(args[i], attachments, minSize, tempDir);
+            if (value != args[i]) {
+                if (extracted == null) {
+                    extracted = args.clone();
+                }
+                extracted[i] = value;
+            }
+        }
+        return extracted == null ? args : extracted;
+    }
+
+    /**
+     * 将单个值替换为附件引用
+     * @return 附件引用，不需要作为附件发送时返回原值
+     */
+    public static Object extract(Object value, List<OutboundAttachment> attachments, int minSize, File tempDir)
+            throws IOException {
+        OutboundAttachment attachment;
+        if (value instanceof byte[] && ((byte[]) value).length >= minSize) {
+            attachment = new OutboundAttachment(KIND_BYTES, (byte[]) value, null, null, false);
+        } else if (value instanceof ByteBuffer && ((ByteBuffer) value).remaining() >= minSize) {
+            attachment = new OutboundAttachment(KIND_BUFFER, null, (ByteBuffer) value, null, false);
+        } else if (value instanceof File) {
+            attachment = new OutboundAttachment(KIND_FILE, null, null, (File) value, false);
+        } else if (value instanceof Path) {
+            attachment = new OutboundAttachment(KIND_PATH, null, null, ((Path) value).toFile(), false);
+        } else if (value instanceof InputStream) {
+            // 长度未知，先暂存到临时文件
+            File file = createTempFile(tempDir);
+            try (InputStream in = (InputStream) value) {
+                Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            attachment = new OutboundAttachment(KIND_STREAM, null, null, file, true);
+        } else {
+            return value;
+        }
+        attachments.add(attachment);
+        return new AttachmentRef(attachments.size() - 1);
+    }
+
+    /**
+     * 解析附件数量头
+     * @param header 请求头或响应头的值
+     * @return 附件数量，缺省或格式错误时为0
+     */
+    public static int parseCount(String header) {
+        if (header == null || header.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(header.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * @return 帧的总字节数，用于定长流式发送
+     */
+    public static long frameLength(byte[] envelope, List<OutboundAttachment> attachments) {
+        long length = 4L + envelope.length;
+        for (OutboundAttachment attachment : attachments) {
+            length += 1 + 8 + attachment.length();
+        }
+        return length;
+    }
+
+    /**
+     * 写出帧
+     * @param out 输出流，不会被关闭
+     */
+    public static void writeFrame(OutputStream out, byte[] envelope, List<OutboundAttachment> attachments)
+            throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(envelope.length);
+        data.write(envelope);
+        for (OutboundAttachment attachment : attachments) {
+            data.writeByte(attachment.getKind());
+            data.writeLong(attachment.length());
+            data.flush();
+            attachment.writeTo(out);
+        }
+        data.flush();
+    }
+
+    /**
+     * 读取帧中的信封
+     * 长度和帧总长都来自未经签名校验的数据，分配前先按帧总长和配置的上限校验
+     * @param in 输入流
+     * @param frameLength 帧总字节数（Content-Length）
+     * @param maxSize 信封的最大字节数
+     * @return 信封
+     * @throws IOException 读取失败或长度不合法
+     */
+    public static byte[] readEnvelope(DataInputStream in, long frameLength, int maxSize) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > frameLength - 4) {
+            throw new IOException("信封长度不合法: " + length + "，帧长度: " + frameLength);
+        }
+        if (length > maxSize) {
+            throw new IOException("信封长度超出上限: " + length + " > " + maxSize);
+        }
+        byte[] envelope = new byte[length];
+        in.readFully(envelope);
+        return envelope;
+    }
+
+    /**
+     * @return 帧中信封之后剩余的字节数
+     */
+    public static long remaining(long frameLength, byte[] envelope) {
+        return frameLength - 4 - envelope.length;
+    }
+
+    /**
+     * 读取信封之后的附件
+     * byte[]直接读入等长数组；其余类型写入临时文件，ByteBuffer以只读内存映射方式提供。
+     * tempFiles为null时（客户端）临时文件的生命周期跟随返回值：ByteBuffer映射后立即删除文件，
+     * InputStream关闭时删除文件，File、Path交由调用方删除
+     * @param in 输入流
+     * @param count 附件数量
+     * @param remaining 信封之后剩余的帧字节数，附件长度累计不得超出
+     * @param tempDir 临时文件目录
+     * @param tempFiles 收集创建的临时文件，由调用方在使用完毕后删除；为null时按返回值类型决定
+     * @return 按序号排列的附件值
+     */
+    public static List<Object> readAttachments(DataInputStream in, int count, long remaining, File tempDir,
+                                               List<File> tempFiles) throws IOException {
+        // 每个附件至少占用类型和长度共9字节，数量本身也受帧长度约束
+        if (count > remaining / 9) {
+            throw new IOException("附件数量不合法: " + count + "，剩余帧长度: " + remaining);
+        }
+        List<Object> attachments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte kind = in.readByte();
+            long length = in.readLong();
+            remaining -= 9;
+            // 长度来自未经签名校验的数据，分配内存或写入磁盘前先按帧总长校验
+            if (length < 0 || length > remaining) {
+                throw new IOException("附件长度不合法: " + length + "，剩余帧长度: " + remaining);
+            }
+            remaining -= length;
+            if (kind == KIND_BYTES) {
+                if (length > Integer.MAX_VALUE) {
+                    throw new IOException("附件长度超出数组上限: " + length);
+                }
+                byte[] bytes = new byte[(int) length];
+                in.readFully(bytes);
+                attachments.add(bytes);
+                continue;
+            }
+            if (kind != KIND_BUFFER && kind != KIND_FILE && kind != KIND_PATH && kind != KIND_STREAM) {
+                throw new IOException("未知的附件类型: " + kind);
+            }
+            File file = createTempFile(tempDir);
+            if (tempFiles != null) {
+                tempFiles.add(file);
+            }
+            try {
+                receiveToFile(in, length, file);
+                attachments.add(toValue(kind, file, length, tempFiles == null));
+            } catch (IOException | RuntimeException e) {
+                if (tempFiles == null) {
+                    // 客户端读取失败时返回值不会交给调用方，由这里删除已接收的临时文件
+                    file.delete();
+                    discard(attachments);
+                }
+                throw e;
+            }
+        }
+        return attachments;
+    }
+
+    /**
+     * 丢弃客户端已接收但未交给调用方的附件
+     */
+    private static void discard(List<Object> attachments) {
+        for (Object attachment : attachments) {
+            if (attachment instanceof Closeable) {
+                try {
+                    ((Closeable) attachment).close();
+                } catch (IOException ignored) {
+                    // 关闭失败时临时文件无法删除，不影响抛出原始异常
+                }
+            } else if (attachment instanceof File) {
+                ((File) attachment).delete();
+            } else if (attachment instanceof Path) {
+                ((Path) attachment).toFile().delete();
+            }
+        }
+    }
+
+    /**
+     * 将接收完毕的临时文件转换为附件值
+     * @param owned 是否由返回值管理临时文件的生命周期
+     */
+    private static Object toValue(byte kind, File file, long length, boolean owned) throws IOException {
+        if (kind == KIND_BUFFER) {
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            }
+            // 映射建立后文件可以删除，内存映射在缓冲区被回收前保持有效；不支持删除已映射文件的系统上留待JVM退出时删除
+            if (owned && !file.delete()) {
+                file.deleteOnExit();
+            }
+            return buffer;
+        }
+        if (kind == KIND_STREAM) {
+            return owned ? Files.newInputStream(file.toPath(), StandardOpenOption.DELETE_ON_CLOSE)
+                    : new FileInputStream(file);
+        }
+        return kind == KIND_FILE ? file : file.toPath();
+    }
+
+    /**
+     * 将参数中的附件引用还原为附件值
+     */
+    public static Object[] resolve(Object[] args, List<Object> attachments) {
+        if (args == null || attachments.isEmpty()) {
+            return args;
+        }
+        Object[] resolved = args.clone();
+        for (int i = 0; i < resolved.length; i++) {
+            resolved[i] = resolve(resolved[i], attachments);
+        }
+        return resolved;
+    }
+
+    public static Object resolve(Object value, List<Object> attachments) {
+        if (value instanceof AttachmentRef) {
+            return attachments.get(((AttachmentRef) value).getIndex());
+        }
+        return value;
+    }
+
+    /**
+     * 关闭附件中的流并删除临时文件
+     */
+    public static void cleanup(List<Object> attachments, List<File> tempFiles) {
+        for (Object attachment : attachments) {
+            if (attachment instanceof Closeable) {
+                try {
+                    ((Closeable) attachment).close();
+                } catch (IOException ignored) {
+                    // 关闭失败不影响删除临时文件
+                }
+            }
+        }
+        for (File file : tempFiles) {
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * 释放发送时暂存的临时文件
+     */
+    public static void release(List<OutboundAttachment> attachments) {
+        for (OutboundAttachment attachment : attachments) {
+            attachment.release();
+        }
+    }
+
+    private static void receiveToFile(InputStream in, long length, File file) throws IOException {
+        ReadableByteChannel source = Channels.newChannel(in);
+        try (FileChannel target = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            long position = 0;
+            while (position < length) {
+                long transferred = target.transferFrom(source, position, length - position);
+                if (transferred <= 0) {
+                    throw new IOException("附件数据不完整: 期望" + length + "字节，实际" + position + "字节");
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    private static File createTempFile(File tempDir) throws IOException {
+        return File.createTempFile(TEMP_PREFIX, ".tmp", tempDir);
+    }
+}
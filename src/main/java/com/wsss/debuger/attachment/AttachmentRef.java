@@ -0,0 +1,31 @@
+package com.wsss.debuger.attachment;
+
+/**
+ * 带外附件引用
+ * 大块二进制参数或返回值在信封中被替换为此引用，数据紧随信封之后流式传输
+ */
+public class AttachmentRef {
+
+    // 附件在帧中的序号
+    private int index;
+
+    public AttachmentRef() {
+    }
+
+    public AttachmentRef(int index) {
+        this.index = index;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    @Override
+    public String toString() {
+        return "AttachmentRef{index=" + index + "}";
+    }
+}
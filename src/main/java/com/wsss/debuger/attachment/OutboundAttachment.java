@@ -0,0 +1,88 @@
+package com.wsss.debuger.attachment;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 待发送的附件
+ * 数据来源为内存数组、ByteBuffer或文件，写出时不额外复制到堆上
+ */
+public class OutboundAttachment {
+
+    private final byte kind;
+    private final byte[] bytes;
+    private final ByteBuffer buffer;
+    private final File file;
+    // 文件是否为发送前暂存的临时文件，发送完成后删除
+    private final boolean temporary;
+    // 创建时确定的长度，文件在发送过程中被修改也不影响帧结构
+    private final long length;
+
+    OutboundAttachment(byte kind, byte[] bytes, ByteBuffer buffer, File file, boolean temporary) {
+        this.kind = kind;
+        this.bytes = bytes;
+        this.buffer = buffer;
+        this.file = file;
+        this.temporary = temporary;
+        if (bytes != null) {
+            this.length = bytes.length;
+        } else if (buffer != null) {
+            this.length = buffer.remaining();
+        } else {
+            this.length = file.length();
+        }
+    }
+
+    public byte getKind() {
+        return kind;
+    }
+
+    public long length() {
+        return length;
+    }
+
+    /**
+     * 写出附件数据，文件通过FileChannel.transferTo写出
+     * @param out 输出流，不会被关闭
+     * @throws IOException IO异常
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        if (bytes != null) {
+            out.write(bytes);
+            return;
+        }
+        WritableByteChannel channel = Channels.newChannel(out);
+        if (buffer != null) {
+            ByteBuffer duplicate = buffer.duplicate();
+            while (duplicate.hasRemaining()) {
+                channel.write(duplicate);
+            }
+            return;
+        }
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long position = 0;
+            while (position < length) {
+                long transferred = fileChannel.transferTo(position, length - position, channel);
+                if (transferred <= 0) {
+                    throw new IOException("附件文件被截断: " + file);
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    /**
+     * 释放发送前暂存的临时文件
+     */
+    public void release() {
+        if (temporary && file != null && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+}
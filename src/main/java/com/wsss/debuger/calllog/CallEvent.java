@@ -0,0 +1,110 @@
+package com.wsss.debuger.calllog;
+
+import com.wsss.debuger.utils.DeepCopyUtil;
+
+import java.util.Arrays;
+
+/**
+ * 调用事件
+ * 作为环形缓冲区中预分配的槽位被反复复用，热路径上只写入字段引用。
+ * 参数在记录时做快照：不可变参数保留引用，推迟到后台写出线程渲染；
+ * 可变参数在调用线程上立即渲染，避免写出时看到调用方后续修改的状态或与之并发修改。
+ * 快照在调用结束、记录事件时获取，反映的是目标方法执行之后的参数状态
+ */
+public class CallEvent {
+
+    public static final byte CLIENT = 0;
+    public static final byte SERVER = 1;
+
+    // 槽位当前承载的事件序号，写入完成后发布
+    volatile long sequence = -1;
+
+    long timestamp;
+    byte side;
+    String beanName;
+    String methodName;
+    Object[] arguments;
+    Class<?> resultType;
+    long durationNanos;
+    boolean success;
+
+    void clear() {
+        beanName = null;
+        methodName = null;
+        arguments = null;
+        resultType = null;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getSide() {
+        return side == CLIENT ? "client" : "server";
+    }
+
+    public String getBeanName() {
+        return beanName;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public String getResultType() {
+        return resultType != null ? resultType.getName() : "null";
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    /**
+     * 在调用线程上为参数做快照
+     * @param arguments 调用参数
+     * @param maxLength 单个参数渲染的最大长度
+     * @return 复制的参数数组，可变参数已替换为其字符串表示
+     */
+    static Object[] snapshot(Object[] arguments, int maxLength) {
+        if (arguments == null) {
+            return null;
+        }
+        Object[] snapshot = arguments.clone();
+        for (int i = 0; i < snapshot.length; i++) {
+            Object argument = snapshot[i];
+            if (argument != null && !DeepCopyUtil.isImmutable(argument.getClass())) {
+                snapshot[i] = truncate(render(new Object[]{argument}, 1), maxLength);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * 渲染参数，只在写出线程上调用
+     * @param maxLength 最大长度，超出部分截断
+     * @return 参数的字符串表示
+     */
+    public String renderArguments(int maxLength) {
+        return truncate(render(arguments, 0), maxLength);
+    }
+
+    /**
+     * @param trim 去掉首尾各若干个字符（单个参数包装成数组渲染时去掉方括号）
+     */
+    private static String render(Object[] arguments, int trim) {
+        try {
+            String rendered = Arrays.deepToString(arguments);
+            return rendered.substring(trim, rendered.length() - trim);
+        } catch (Exception e) {
+            return "<渲染失败: " + e.getClass().getName() + ">";
+        }
+    }
+
+    private static String truncate(String rendered, int maxLength) {
+        return rendered.length() > maxLength ? rendered.substring(0, maxLength) + "..." : rendered;
+    }
+}
@@ -0,0 +1,196 @@
+package com.wsss.debuger.calllog;
+
+import com.wsss.debuger.config.DebugerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步调用日志
+ * 调用线程通过CAS在预分配的环形缓冲区中占位并写入字段引用，不加锁，只渲染可变参数（见CallEvent）；
+ * 后台线程按序取出事件并写入SLF4J或滚动二进制文件。
+ * mode=off 关闭，mode=sampled（默认）按采样率和每秒上限记录，mode=all 记录全部调用；
+ * 缓冲区满时丢弃新事件并计数，不阻塞调用线程
+ */
+@Component
+public class CallLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(CallLog.class);
+
+    public static final String MODE_OFF = "off";
+    public static final String MODE_SAMPLED = "sampled";
+    public static final String MODE_ALL = "all";
+
+    @Autowired
+    private DebugerConfig debugerConfig;
+
+    private String mode;
+    private double sampleRate;
+    private int maxPerSecond;
+    private int maxArgumentLength;
+
+    private CallEvent[] ring;
+    private int mask;
+    // 下一个可占用的序号
+    private final AtomicLong cursor = new AtomicLong();
+    // 写出线程下一个要处理的序号
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    // 每秒限流窗口
+    private volatile long windowSecond;
+    private final AtomicInteger windowCount = new AtomicInteger();
+
+    private CallLogSink sink;
+    private Thread writer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() throws IOException {
+        mode = debugerConfig.getCallLogMode();
+        sampleRate = debugerConfig.getCallLogSampleRate();
+        maxPerSecond = debugerConfig.getCallLogMaxPerSecond();
+        if (MODE_OFF.equals(mode)) {
+            return;
+        }
+        int size = Integer.highestOneBit(Math.max(2, debugerConfig.getCallLogBufferSize() - 1)) << 1;
+        ring = new CallEvent[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new CallEvent();
+        }
+        mask = size - 1;
+
+        maxArgumentLength = debugerConfig.getCallLogMaxArgumentLength();
+        if ("file".equals(debugerConfig.getCallLogSink())) {
+            sink = new RollingFileCallLogSink(debugerConfig.getCallLogFile(),
+                    debugerConfig.getCallLogMaxFileSize(), maxArgumentLength);
+        } else {
+            sink = new Slf4jCallLogSink(maxArgumentLength);
+        }
+        running = true;
+        writer = new Thread(this::drain, "debuger-call-log");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("调用日志已启动: mode={}, sampleRate={}, maxPerSecond={}, bufferSize={}, sink={}",
+                mode, sampleRate, maxPerSecond, size, sink.getClass().getSimpleName());
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(5000);
+    }
+
+    /**
+     * 记录一次调用，在调用线程上执行
+     * @param side 调用方，CallEvent.CLIENT 或 CallEvent.SERVER
+     * @param beanName bean名称
+     * @param methodName 方法名
+     * @param arguments 参数，不可变参数保存引用、写出时渲染，可变参数立即渲染
+     * @param result 返回值，仅记录其类型
+     * @param durationNanos 耗时
+     * @param success 是否成功
+     */
+    public void record(byte side, String beanName, String methodName, Object[] arguments, Object result,
+                       long durationNanos, boolean success) {
+        if (ring == null || !shouldRecord()) {
+            return;
+        }
+        // 在占用槽位前做快照，渲染耗时不会阻塞写出线程
+        Object[] snapshot = CallEvent.snapshot(arguments, maxArgumentLength);
+        long sequence;
+        do {
+            sequence = cursor.get();
+            if (sequence - consumed.get() >= ring.length) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!cursor.compareAndSet(sequence, sequence + 1));
+
+        CallEvent event = ring[(int) sequence & mask];
+        event.timestamp = System.currentTimeMillis();
+        event.side = side;
+        event.beanName = beanName;
+        event.methodName = methodName;
+        event.arguments = snapshot;
+        event.resultType = result != null ? result.getClass() : null;
+        event.durationNanos = durationNanos;
+        event.success = success;
+        // 发布事件，写出线程看到序号后才读取上面的字段
+        event.sequence = sequence;
+    }
+
+    /**
+     * @return 因缓冲区满而丢弃的事件数
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private boolean shouldRecord() {
+        if (MODE_ALL.equals(mode)) {
+            return true;
+        }
+        if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return false;
+        }
+        if (maxPerSecond <= 0) {
+            return true;
+        }
+        long second = System.currentTimeMillis() / 1000;
+        if (second != windowSecond) {
+            // 窗口切换存在竞争，只影响限流精度
+            windowSecond = second;
+            windowCount.set(0);
+        }
+        return windowCount.incrementAndGet() <= maxPerSecond;
+    }
+
+    /**
+     * 写出线程主循环
+     */
+    private void drain() {
+        long next = consumed.get();
+        while (true) {
+            CallEvent event = ring[(int) next & mask];
+            if (event.sequence == next) {
+                try {
+                    sink.write(event);
+                } catch (Exception e) {
+                    logger.warn("写出调用日志失败", e);
+                }
+                event.clear();
+                consumed.lazySet(++next);
+                continue;
+            }
+            // 缓冲区暂时为空
+            try {
+                sink.flush();
+            } catch (IOException e) {
+                logger.warn("刷新调用日志失败", e);
+            }
+            if (!running && cursor.get() == next) {
+                break;
+            }
+            LockSupport.parkNanos(1000000L);
+        }
+        try {
+            sink.close();
+        } catch (IOException e) {
+            logger.warn("关闭调用日志失败", e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.wsss.debuger.calllog;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 调用事件的输出目标，只在后台写出线程上调用
+ */
+public interface CallLogSink extends Closeable {
+
+    void write(CallEvent event) throws IOException;
+
+    /**
+     * 缓冲区暂时为空时调用，可在此刷新缓冲
+     */
+    void flush() throws IOException;
+}
@@ -0,0 +1,71 @@
+package com.wsss.debuger.calllog;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * 以二进制记录输出调用事件的滚动文件
+ * 每条记录依次为：long时间戳、byte调用方(0客户端/1服务端)、UTF bean名称、UTF方法名、
+ * boolean是否成功、long耗时纳秒、UTF返回类型、UTF参数；
+ * 文件超过上限后重命名为 .1 并重新创建，只保留一个历史文件
+ */
+public class RollingFileCallLogSink implements CallLogSink {
+
+    private final File file;
+    private final long maxFileSize;
+    private final int maxArgumentLength;
+    private DataOutputStream out;
+
+    public RollingFileCallLogSink(String file, long maxFileSize, int maxArgumentLength) throws IOException {
+        this.file = new File(file);
+        this.maxFileSize = maxFileSize;
+        this.maxArgumentLength = maxArgumentLength;
+        open();
+    }
+
+    @Override
+    public void write(CallEvent event) throws IOException {
+        if (out.size() >= maxFileSize) {
+            roll();
+        }
+        out.writeLong(event.getTimestamp());
+        out.writeByte(event.side);
+        out.writeUTF(String.valueOf(event.getBeanName()));
+        out.writeUTF(String.valueOf(event.getMethodName()));
+        out.writeBoolean(event.isSuccess());
+        out.writeLong(event.getDurationNanos());
+        out.writeUTF(event.getResultType());
+        // writeUTF最多65535字节，按最坏情况每字符3字节限制长度
+        out.writeUTF(event.renderArguments(Math.min(maxArgumentLength, 65535 / 3 - 3)));
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void roll() throws IOException {
+        out.close();
+        File backup = new File(file.getPath() + ".1");
+        if (backup.exists() && !backup.delete()) {
+            throw new IOException("删除历史调用日志失败: " + backup);
+        }
+        if (!file.renameTo(backup)) {
+            throw new IOException("滚动调用日志失败: " + file);
+        }
+        open();
+    }
+
+    private void open() throws IOException {
+        // 追加模式下DataOutputStream.size()从0开始，滚动阈值按本次写入量计算
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true), 64 * 1024));
+    }
+}
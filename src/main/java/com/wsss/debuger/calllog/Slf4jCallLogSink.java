@@ -0,0 +1,36 @@
+package com.wsss.debuger.calllog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 以结构化INFO日志输出调用事件
+ */
+public class Slf4jCallLogSink implements CallLogSink {
+
+    private static final Logger logger = LoggerFactory.getLogger("com.wsss.debuger.calls");
+
+    private final int maxArgumentLength;
+
+    public Slf4jCallLogSink(int maxArgumentLength) {
+        this.maxArgumentLength = maxArgumentLength;
+    }
+
+    @Override
+    public void write(CallEvent event) {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        logger.info("side={} bean={} method={} success={} durationUs={} resultType={} args={}",
+                event.getSide(), event.getBeanName(), event.getMethodName(), event.isSuccess(),
+                event.getDurationNanos() / 1000, event.getResultType(), event.renderArguments(maxArgumentLength));
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
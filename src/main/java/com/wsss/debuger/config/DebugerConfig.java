@@ -3,11 +3,14 @@ package com.wsss.debuger.config;
 import com.wsss.debuger.processor.DebugerBeanPostProcessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -35,6 +38,73 @@ public class DebugerConfig {
     private String password;
     @Value("${wsss.debuger.proxy.url:}")
     private String url;
+    @Value("${wsss.debuger.proxy.transport:auto}")
+    private String transport;
+
+    @Value("${wsss.debuger.dictionary.enable:true}")
+    private boolean dictionaryEnable;
+    @Value("${wsss.debuger.dictionary.capacity:256}")
+    private int dictionaryCapacity;
+    @Value("${wsss.debuger.dictionary.min-size:1024}")
+    private int dictionaryMinSize;
+    @Value("${wsss.debuger.dictionary.max-bytes:4194304}")
+    private long dictionaryMaxBytes;
+
+    @Value("${wsss.debuger.session.capacity:64}")
+    private int sessionCapacity;
+    @Value("${wsss.debuger.session.timeout:1800}")
+    private int sessionTimeout;
+
+    @Value("${wsss.debuger.trace.sample-rate:0}")
+    private double traceSampleRate;
+    @Value("${wsss.debuger.trace.exporter:memory}")
+    private String traceExporter;
+    @Value("${wsss.debuger.trace.file:debuger-trace.log}")
+    private String traceFile;
+    @Value("${wsss.debuger.trace.memory-capacity:10000}")
+    private int traceMemoryCapacity;
+    @Value("${wsss.debuger.trace.buffer-size:8192}")
+    private int traceBufferSize;
+
+    @Value("${wsss.debuger.proxy.max-body-size:67108864}")
+    private int maxBodySize;
+    @Value("${wsss.debuger.attachment.min-size:65536}")
+    private int attachmentMinSize;
+    @Value("${wsss.debuger.attachment.temp-dir:}")
+    private String attachmentTempDir;
+
+    @Value("${wsss.debuger.projection.enable:true}")
+    private boolean projectionEnable;
+    @Autowired
+    private Environment environment;
+
+    @Value("${wsss.debuger.hedge.enable:false}")
+    private boolean hedgeEnable;
+    @Value("${wsss.debuger.hedge.percentile:95}")
+    private double hedgePercentile;
+    @Value("${wsss.debuger.hedge.min-delay:5}")
+    private long hedgeMinDelay;
+    @Value("${wsss.debuger.hedge.budget-ratio:0.05}")
+    private double hedgeBudgetRatio;
+    @Value("${wsss.debuger.hedge.urls:}")
+    private List<String> hedgeUrls;
+
+    @Value("${wsss.debuger.call-log.mode:sampled}")
+    private String callLogMode;
+    @Value("${wsss.debuger.call-log.sample-rate:0.01}")
+    private double callLogSampleRate;
+    @Value("${wsss.debuger.call-log.max-per-second:100}")
+    private int callLogMaxPerSecond;
+    @Value("${wsss.debuger.call-log.buffer-size:4096}")
+    private int callLogBufferSize;
+    @Value("${wsss.debuger.call-log.sink:slf4j}")
+    private String callLogSink;
+    @Value("${wsss.debuger.call-log.file:debuger-calls.bin}")
+    private String callLogFile;
+    @Value("${wsss.debuger.call-log.max-file-size:67108864}")
+    private long callLogMaxFileSize;
+    @Value("${wsss.debuger.call-log.max-argument-length:1024}")
+    private int callLogMaxArgumentLength;
 
     public Set<Class> getClassNames() {
         // 检查classs和classNames是否一致
@@ -75,4 +145,187 @@ public class DebugerConfig {
     public String getUrl() {
         return url;
     }
+
+    /**
+     * @return 调用方式：http 通过HTTP转发；
+     * loopback 在本JVM内经DebugerController.invokeLocal调用服务端容器中同名的bean，找不到服务端控制器时启动失败；
+     * auto 在当前上下文（含父上下文）存在DebugerController时使用loopback，否则使用http；
+     * 其他取值均按http处理
+     */
+    public String getTransport() {
+        return transport;
+    }
+
+    public boolean isDictionaryEnable() {
+        return dictionaryEnable;
+    }
+
+    public int getDictionaryCapacity() {
+        return dictionaryCapacity;
+    }
+
+    public int getDictionaryMinSize() {
+        return dictionaryMinSize;
+    }
+
+    /**
+     * @return 服务端每个会话的对象字典缓存的总字节数上限
+     */
+    public long getDictionaryMaxBytes() {
+        return dictionaryMaxBytes;
+    }
+
+    public int getSessionCapacity() {
+        return sessionCapacity;
+    }
+
+    /**
+     * @return 会话空闲超时时间（秒）
+     */
+    public int getSessionTimeout() {
+        return sessionTimeout;
+    }
+
+    /**
+     * @return 客户端头部采样率，0表示关闭跟踪，1表示全部采样
+     */
+    public double getTraceSampleRate() {
+        return traceSampleRate;
+    }
+
+    /**
+     * @return 内置导出器类型：memory 或 file
+     */
+    public String getTraceExporter() {
+        return traceExporter;
+    }
+
+    public String getTraceFile() {
+        return traceFile;
+    }
+
+    public int getTraceMemoryCapacity() {
+        return traceMemoryCapacity;
+    }
+
+    /**
+     * @return 文件导出器待写出跨度的上限，超出时丢弃
+     */
+    public int getTraceBufferSize() {
+        return traceBufferSize;
+    }
+
+    /**
+     * @return byte[]和ByteBuffer作为带外附件传输的最小字节数
+     */
+    /**
+     * @return 服务端接收的请求体（不带附件）或信封的最大字节数，在分配内存前校验
+     */
+    public int getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    public int getAttachmentMinSize() {
+        return attachmentMinSize;
+    }
+
+    /**
+     * @return 附件临时文件目录，未配置时为null，使用java.io.tmpdir
+     */
+    public File getAttachmentTempDir() {
+        return attachmentTempDir == null || attachmentTempDir.trim().isEmpty() ? null : new File(attachmentTempDir.trim());
+    }
+
+    /**
+     * @return 是否向服务端发送返回值字段投影
+     */
+    public boolean isProjectionEnable() {
+        return projectionEnable;
+    }
+
+    /**
+     * 读取配置的返回值字段投影，配置项为 wsss.debuger.projection.fields.{beanName}.{methodName}
+     * @param beanName bean名称
+     * @param methodName 方法名
+     * @return 逗号分隔的字段路径，未配置时返回null
+     */
+    public String getProjection(String beanName, String methodName) {
+        return environment.getProperty("wsss.debuger.projection.fields." + beanName + "." + methodName);
+    }
+
+    /**
+     * @return 是否对@Idempotent方法启用对冲请求
+     */
+    public boolean isHedgeEnable() {
+        return hedgeEnable;
+    }
+
+    /**
+     * @return 对冲延迟取最近调用延迟的百分位
+     */
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    /**
+     * @return 对冲延迟下限（毫秒）
+     */
+    public long getHedgeMinDelay() {
+        return hedgeMinDelay;
+    }
+
+    /**
+     * @return 对冲请求占调用数的比例上限
+     */
+    public double getHedgeBudgetRatio() {
+        return hedgeBudgetRatio;
+    }
+
+    /**
+     * @return 对冲请求的备用地址，为空时对冲请求发往原地址
+     */
+    public List<String> getHedgeUrls() {
+        return hedgeUrls;
+    }
+
+    /**
+     * @return 调用日志模式：off、sampled 或 all
+     */
+    public String getCallLogMode() {
+        return callLogMode;
+    }
+
+    public double getCallLogSampleRate() {
+        return callLogSampleRate;
+    }
+
+    /**
+     * @return sampled模式下每秒最多记录的事件数，0表示不限
+     */
+    public int getCallLogMaxPerSecond() {
+        return callLogMaxPerSecond;
+    }
+
+    public int getCallLogBufferSize() {
+        return callLogBufferSize;
+    }
+
+    /**
+     * @return 调用日志输出目标：slf4j 或 file
+     */
+    public String getCallLogSink() {
+        return callLogSink;
+    }
+
+    public String getCallLogFile() {
+        return callLogFile;
+    }
+
+    public long getCallLogMaxFileSize() {
+        return callLogMaxFileSize;
+    }
+
+    public int getCallLogMaxArgumentLength() {
+        return callLogMaxArgumentLength;
+    }
 }
\ No newline at end of file
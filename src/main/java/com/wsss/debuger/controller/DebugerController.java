@@ -1,8 +1,26 @@
 package com.wsss.debuger.controller;
 
+import com.wsss.debuger.attachment.AttachmentCodec;
+import com.wsss.debuger.attachment.OutboundAttachment;
+import com.wsss.debuger.calllog.CallEvent;
+import com.wsss.debuger.calllog.CallLog;
 import com.wsss.debuger.config.DebugerConfig;
+import com.wsss.debuger.dictionary.ObjectDictionaryMissException;
+import com.wsss.debuger.invocation.TargetInvoker;
 import com.wsss.debuger.model.DebugRequest;
 import com.wsss.debuger.model.DebugResponse;
+import com.wsss.debuger.model.DebugerHeaders;
+import com.wsss.debuger.session.DebugerSession;
+import com.wsss.debuger.session.HandshakeRequest;
+import com.wsss.debuger.session.HandshakeResponse;
+import com.wsss.debuger.session.SessionExpiredException;
+import com.wsss.debuger.session.SessionManager;
+import com.wsss.debuger.session.SessionProtocol;
+import com.wsss.debuger.trace.TraceContext;
+import com.wsss.debuger.trace.Tracer;
+import com.wsss.debuger.utils.HmacUtil;
+import com.wsss.debuger.utils.MacInputStream;
+import com.wsss.debuger.utils.ProjectionUtil;
 import com.wsss.debuger.utils.ProtoStuffUtil;
 
 import org.apache.commons.lang3.StringUtils;
@@ -18,11 +36,18 @@ import java.io.IOException;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import javax.crypto.Mac;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
 import java.io.InputStream;
-import java.lang.reflect.Method;
-import java.util.Arrays;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
 
 /**
  * Debuger HTTP接口控制器
@@ -39,25 +64,111 @@ public class DebugerController implements ApplicationContextAware {
     
     @Autowired
     private DebugerConfig debugerConfig;
+
+    @Autowired
+    private SessionManager sessionManager;
+
+    @Autowired
+    private Tracer tracer;
+
+    @Autowired
+    private CallLog callLog;
     
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
         this.applicationContext = applicationContext;
     }
     
+    /**
+     * 握手接口
+     * 校验客户端的密码证明，建立会话并协商协议版本、编解码和压缩方式
+     * @param request HTTP请求对象
+     * @return 序列化的HandshakeResponse对象
+     */
+    @PostMapping("/handshake")
+    public ResponseEntity<byte[]> handshake(HttpServletRequest request) {
+        HandshakeResponse response;
+        try {
+            byte[] requestData = readRequestBody(request);
+            response = sessionManager.handshake(ProtoStuffUtil.deserialize(requestData, HandshakeRequest.class));
+        } catch (Exception e) {
+            logger.error("处理握手请求失败", e);
+            response = new HandshakeResponse("处理握手请求失败: " + e.getMessage());
+        }
+        return ResponseEntity.ok(ProtoStuffUtil.serialize(response));
+    }
+    
     /**
      * 处理调试请求的接口
      * @param request HTTP请求对象
-     * @return 方法调用结果的序列化数据（DebugResponse对象）
+     * @param httpResponse HTTP响应对象，返回值带附件时直接写出
+     * @return 方法调用结果的序列化数据（DebugResponse对象），已直接写出时为null
      */
     @PostMapping("/invoke")
-    public ResponseEntity<byte[]> invoke(HttpServletRequest request) {
+    public ResponseEntity<byte[]> invoke(HttpServletRequest request, HttpServletResponse httpResponse) {
+        List<Object> attachments = new ArrayList<>(0);
+        List<File> tempFiles = new ArrayList<>(0);
+        try {
+            return doInvoke(request, httpResponse, attachments, tempFiles);
+        } finally {
+            // 调用结束后关闭附件流并删除附件临时文件
+            AttachmentCodec.cleanup(attachments, tempFiles);
+        }
+    }
+
+    /**
+     * 处理调试请求
+     * @param request HTTP请求对象
+     * @param httpResponse HTTP响应对象
+     * @param attachments 收集请求附件
+     * @param tempFiles 收集请求附件的临时文件
+     * @return 方法调用结果的序列化数据，已直接写出时为null
+     */
+    private ResponseEntity<byte[]> doInvoke(HttpServletRequest request, HttpServletResponse httpResponse,
+                                            List<Object> attachments, List<File> tempFiles) {
+        // 客户端采样的调用才携带跟踪上下文，未采样时为null，以下跟踪记录均直接返回
+        TraceContext trace = TraceContext.fromHeader(request.getHeader(DebugerHeaders.TRACE));
+        long phaseStart = System.nanoTime();
+        
+        // 1. 会话校验
+        DebugerSession session = sessionManager.getSession(request.getHeader(DebugerHeaders.SESSION));
+        if (session == null) {
+            logger.info("会话不存在或已过期，要求客户端重新握手");
+            DebugResponse response = new DebugResponse("会话不存在或已过期", SessionExpiredException.class.getName());
+            return ResponseEntity.ok(ProtoStuffUtil.serialize(response));
+        }
         
-        // 1. 读取并反序列化请求数据
+        // 2. 读取请求数据并校验签名，带附件时附件边接收边计算签名
+        byte[] signature = decodeSignature(request.getHeader(DebugerHeaders.SIGNATURE));
+        long sequence = parseSequence(request.getHeader(DebugerHeaders.SEQUENCE));
+        String attachmentHeader = request.getHeader(DebugerHeaders.ATTACHMENTS);
+        String projection = request.getHeader(DebugerHeaders.PROJECTION);
+        byte[] prefix = SessionProtocol.signedPrefix(sequence, attachmentHeader,
+                request.getHeader(DebugerHeaders.TRACE), projection);
+        int attachmentCount = AttachmentCodec.parseCount(attachmentHeader);
         byte[] requestData;
+        boolean verified;
         try {
-            requestData = readRequestBody(request);
-        } catch (IOException e) {
+            if (attachmentCount > 0) {
+                // 帧中的长度均不得超出Content-Length，客户端总是定长发送
+                long frameLength = request.getContentLengthLong();
+                if (frameLength < 0) {
+                    throw new IOException("带附件的请求缺少Content-Length");
+                }
+                Mac mac = session.newMac(prefix);
+                DataInputStream in = new DataInputStream(
+                        new BufferedInputStream(new MacInputStream(request.getInputStream(), mac), 64 * 1024));
+                requestData = AttachmentCodec.readEnvelope(in, frameLength, debugerConfig.getMaxBodySize());
+                attachments.addAll(AttachmentCodec.readAttachments(in, attachmentCount,
+                        AttachmentCodec.remaining(frameLength, requestData), debugerConfig.getAttachmentTempDir(),
+                        tempFiles));
+                verified = HmacUtil.verify(mac.doFinal(), signature);
+            } else {
+                requestData = readRequestBody(request);
+                verified = session.verify(prefix, requestData, signature);
+            }
+        } catch (IOException | RuntimeException e) {
+            // 帧格式错误同样以错误响应返回，避免HTTP 500导致客户端回退为本地执行
             logger.error("读取请求体失败", e);
             DebugResponse response = new DebugResponse("读取请求体失败: " + e.getMessage(), e.getClass().getName());
             return ResponseEntity.ok(ProtoStuffUtil.serialize(response));
@@ -69,27 +180,34 @@ public class DebugerController implements ApplicationContextAware {
             return ResponseEntity.ok(ProtoStuffUtil.serialize(response));
         }
         
+        if (!verified) {
+            logger.error("签名校验失败，拒绝请求: sessionId={}", session.getId());
+            DebugResponse response = new DebugResponse("签名校验失败，请提供正确的授权信息", null);
+            return ResponseEntity.ok(ProtoStuffUtil.serialize(response));
+        }
+        
+        // 签名覆盖序号，校验通过后再登记序号，重放的请求不能刷新会话空闲时间
+        if (!session.acceptSequence(sequence)) {
+            logger.error("请求序号重复或过旧，拒绝重放请求: sessionId={}, sequence={}", session.getId(), sequence);
+            DebugResponse response = new DebugResponse("请求序号重复或过旧，拒绝重放请求", null);
+            return ResponseEntity.ok(ProtoStuffUtil.serialize(response));
+        }
+        session.touch();
+        
         DebugRequest debugRequest;
         try {
-            // 2. 反序列化为DebugRequest对象
+            // 3. 反序列化为DebugRequest对象
             debugRequest = ProtoStuffUtil.deserialize(requestData, DebugRequest.class);
         } catch (Exception e) {
             logger.error("反序列化请求数据失败", e);
             DebugResponse response = new DebugResponse("反序列化请求数据失败: " + e.getMessage(), e.getClass().getName());
             return ResponseEntity.ok(ProtoStuffUtil.serialize(response));
         }
-        
-        // 3. 密码校验
-        if (!debugerConfig.getPassword().equals(debugRequest.getPassword())) {
-            logger.error("密码校验失败，拒绝请求");
-            DebugResponse response = new DebugResponse("密码校验失败，请提供正确的授权信息", null);
-            return ResponseEntity.ok(ProtoStuffUtil.serialize(response));
-        }
 
-        
         // 4. 检查必要的参数
         String beanName = debugRequest.getBeanName();
         String methodName = debugRequest.getMethodName();
+        tracer.record(trace, "server.decode", beanName, methodName, phaseStart, null);
         if (StringUtils.isEmpty(beanName) || StringUtils.isEmpty(methodName)) {
             logger.error("缺少必要的参数: beanName={}, methodName={}", beanName, methodName);
             DebugResponse response = new DebugResponse("缺少必要的参数，请提供beanName和methodName", null);
@@ -97,8 +215,11 @@ public class DebugerController implements ApplicationContextAware {
         }
         
         try {
-            // 5. 获取请求参数
-            Object[] args = debugRequest.getArguments();
+            phaseStart = System.nanoTime();
+            
+            // 5. 获取请求参数，还原对象字典引用和附件引用
+            Object[] args = session.getDictionary().resolve(debugRequest.getArguments());
+            args = AttachmentCodec.resolve(args, attachments);
             
             // 6. 从Spring容器获取bean
             Object targetBean = getBeanByName(beanName);
@@ -107,32 +228,52 @@ public class DebugerController implements ApplicationContextAware {
                 DebugResponse response = new DebugResponse("未找到指定的bean: " + beanName, null);
                 return ResponseEntity.ok(ProtoStuffUtil.serialize(response));
             }
+            tracer.record(trace, "server.lookup", beanName, methodName, phaseStart, null);
             
-            // 7. 记录方法调用信息
-            logger.info("准备调用目标方法: beanName={}, methodName={}, 参数数量={}", 
-                    beanName, methodName, args != null ? args.length : 0);
-            
-            // 8. 记录执行时间开始
+            // 7. 记录执行时间开始
             long startTime = System.currentTimeMillis();
+            phaseStart = System.nanoTime();
             
-            // 9. 查找并调用方法
-            Object result = invokeMethod(targetBean, methodName, args);
+            // 8. 查找并调用方法
+            Object result;
+            try {
+                result = TargetInvoker.invoke(targetBean, methodName, args);
+            } catch (Exception e) {
+                tracer.record(trace, "server.execute", beanName, methodName, phaseStart, e);
+                callLog.record(CallEvent.SERVER, beanName, methodName, args, null, System.nanoTime() - phaseStart, false);
+                throw e;
+            }
+            tracer.record(trace, "server.execute", beanName, methodName, phaseStart, null);
             
-            // 10. 计算执行时间
+            // 9. 计算执行时间并记录调用日志
             long executionTime = System.currentTimeMillis() - startTime;
+            callLog.record(CallEvent.SERVER, beanName, methodName, args, result, System.nanoTime() - phaseStart, true);
             
-            // 11. 构建成功响应
+            // 10. 构建成功响应，按客户端声明的投影裁剪返回值
             DebugResponse response = new DebugResponse();
             response.setSuccess(true);
-            response.setResult(result);
+            result = ProjectionUtil.project(result, projection);
+            // 大块二进制返回值作为带外附件发送，不进入信封
+            List<OutboundAttachment> resultAttachments = new ArrayList<>(0);
+            response.setResult(AttachmentCodec.extract(result, resultAttachments,
+                    debugerConfig.getAttachmentMinSize(), debugerConfig.getAttachmentTempDir()));
             response.setExecutionTime(executionTime);
             
-            logger.info("方法调用完成: 返回类型={}, 执行时间={}ms", 
-                    result != null ? result.getClass().getName() : "null", executionTime);
+            // 11. 序列化响应并返回
+            phaseStart = System.nanoTime();
+            byte[] body = ProtoStuffUtil.serialize(response);
+            if (!resultAttachments.isEmpty()) {
+                writeFrame(httpResponse, body, resultAttachments);
+                tracer.record(trace, "server.encode", beanName, methodName, phaseStart, null);
+                return null;
+            }
+            tracer.record(trace, "server.encode", beanName, methodName, phaseStart, null);
+            return ResponseEntity.ok(body);
             
-            // 12. 序列化响应并返回
+        } catch (ObjectDictionaryMissException e) {
+            logger.debug("对象字典未命中，等待客户端重发: {}", e.getMessage());
+            DebugResponse response = new DebugResponse(e.getMessage(), e.getClass().getName());
             return ResponseEntity.ok(ProtoStuffUtil.serialize(response));
-            
         } catch (Exception e) {
             logger.error("处理调试请求异常: beanName={}, methodName={}", beanName, methodName, e);
             
@@ -146,8 +287,6 @@ public class DebugerController implements ApplicationContextAware {
         }
     }
     
-    // 密码校验已移至方法内部实现，不再需要单独的validatePassword方法
-    
     /**
      * 读取请求体数据
      * @param request HTTP请求对象
@@ -155,11 +294,29 @@ public class DebugerController implements ApplicationContextAware {
      * @throws IOException IO异常
      */
     private byte[] readRequestBody(HttpServletRequest request) throws IOException {
+        // Content-Length由未经校验的客户端声明，超出上限时直接拒绝，不按其分配内存
+        int maxSize = debugerConfig.getMaxBodySize();
+        long contentLength = request.getContentLengthLong();
+        if (contentLength > maxSize) {
+            throw new IOException("请求体长度超出上限: " + contentLength + " > " + maxSize);
+        }
+        // 已知长度时直接读入等长数组，避免缓冲区扩容和toByteArray的复制
+        if (contentLength > 0) {
+            try (DataInputStream in = new DataInputStream(request.getInputStream())) {
+                byte[] data = new byte[(int) contentLength];
+                in.readFully(data);
+                return data;
+            }
+        }
+        // 长度未知时随数据到达扩容，累计超出上限时拒绝
         try (InputStream is = request.getInputStream();
              ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
             byte[] buffer = new byte[4096];
             int len;
             while ((len = is.read(buffer)) != -1) {
+                if (baos.size() + len > maxSize) {
+                    throw new IOException("请求体长度超出上限: " + maxSize);
+                }
                 baos.write(buffer, 0, len);
             }
             return baos.toByteArray();
@@ -167,167 +324,87 @@ public class DebugerController implements ApplicationContextAware {
     }
     
     /**
-     * 根据名称从Spring容器获取bean
-     * @param beanName bean名称
-     * @return bean对象
+     * 直接向HTTP响应写出带附件的帧
+     * @param httpResponse HTTP响应对象
+     * @param envelope 序列化的DebugResponse
+     * @param attachments 返回值附件
      */
-    private Object getBeanByName(String beanName) {
+    private void writeFrame(HttpServletResponse httpResponse, byte[] envelope, List<OutboundAttachment> attachments) {
         try {
-            return applicationContext.getBean(beanName);
-        } catch (Exception e) {
-            logger.warn("获取bean失败: {}", beanName, e);
-            return null;
-        }
-    }
-    
-    /**
-     * 调用指定对象的方法
-     * @param target 目标对象
-     * @param methodName 方法名
-     * @param args 参数数组
-     * @return 方法调用结果
-     * @throws Exception 调用异常
-     */
-    private Object invokeMethod(Object target, String methodName, Object[] args) throws Exception {
-        if (target == null) {
-            throw new IllegalArgumentException("目标对象不能为空");
-        }
-        
-        Class<?> targetClass = target.getClass();
-        
-        // 查找方法
-        Method method = findMethod(targetClass, methodName, args);
-        if (method != null) {
-            // 设置方法可访问
-            method.setAccessible(true);
-            // 调用方法
-            return method.invoke(target, args);
-        } else {
-            throw new NoSuchMethodException("未找到方法: " + methodName + " 参数类型: " + getParameterTypes(args));
+            httpResponse.setStatus(HttpServletResponse.SC_OK);
+            httpResponse.setContentType("application/octet-stream");
+            httpResponse.setHeader(DebugerHeaders.ATTACHMENTS, String.valueOf(attachments.size()));
+            httpResponse.setContentLengthLong(AttachmentCodec.frameLength(envelope, attachments));
+            OutputStream os = httpResponse.getOutputStream();
+            AttachmentCodec.writeFrame(os, envelope, attachments);
+            os.flush();
+        } catch (IOException e) {
+            // 响应已开始写出，无法再返回错误响应
+            logger.error("写出响应附件失败", e);
+        } finally {
+            AttachmentCodec.release(attachments);
         }
     }
     
     /**
-     * 查找匹配的方法（考虑重载）
-     * @param targetClass 目标类
-     * @param methodName 方法名
-     * @param args 参数数组
-     * @return 找到的方法对象
+     * 解析请求头中的请求序号
+     * @param sequence 请求序号
+     * @return 序号，缺省或格式错误时返回-1，签名和序号校验均不会通过
      */
-    private Method findMethod(Class<?> targetClass, String methodName, Object[] args) {
-        Method[] methods = targetClass.getDeclaredMethods();
-        
-        // 构建参数类型数组
-        Class<?>[] paramTypes = null;
-        if (args != null) {
-            paramTypes = new Class<?>[args.length];
-            for (int i = 0; i < args.length; i++) {
-                if (args[i] == null) {
-                    // 对于null参数，使用Object.class作为类型
-                    paramTypes[i] = Object.class;
-                } else {
-                    paramTypes[i] = args[i].getClass();
-                }
-            }
-        }
-        
-        // 查找匹配的方法
-        for (Method method : methods) {
-            if (method.getName().equals(methodName) && isParameterTypesMatch(method.getParameterTypes(), paramTypes)) {
-                return method;
-            }
+    private long parseSequence(String sequence) {
+        if (StringUtils.isEmpty(sequence)) {
+            return -1;
         }
-        
-        // 如果当前类没找到，尝试在父类中查找
-        Class<?> superClass = targetClass.getSuperclass();
-        if (superClass != null && superClass != Object.class) {
-            return findMethod(superClass, methodName, args);
+        try {
+            return Long.parseLong(sequence.trim());
+        } catch (NumberFormatException e) {
+            return -1;
         }
-        
-        return null;
     }
-    
+
     /**
-     * 检查参数类型是否匹配
-     * @param methodParamTypes 方法声明的参数类型
-     * @param actualParamTypes 实际参数的类型
-     * @return 是否匹配
+     * 解码请求头中的签名
+     * @param signature Base64编码的签名
+     * @return 签名字节，格式错误时返回null
      */
-    private boolean isParameterTypesMatch(Class<?>[] methodParamTypes, Class<?>[] actualParamTypes) {
-        // 参数数量检查
-        if (methodParamTypes.length != (actualParamTypes != null ? actualParamTypes.length : 0)) {
-            return false;
+    private byte[] decodeSignature(String signature) {
+        if (StringUtils.isEmpty(signature)) {
+            return null;
         }
-        
-        // 参数类型检查
-        for (int i = 0; i < methodParamTypes.length; i++) {
-            Class<?> methodType = methodParamTypes[i];
-            Class<?> actualType = actualParamTypes[i];
-            
-            // 对于Object类型的参数，任何类型都匹配
-            if (methodType == Object.class) {
-                continue;
-            }
-            
-            // 对于基本类型，进行装箱类型的匹配
-            if (methodType.isPrimitive()) {
-                if (!isPrimitiveMatch(methodType, actualType)) {
-                    return false;
-                }
-            } else {
-                // 检查类型兼容性（考虑继承关系）
-                if (actualType != null && !methodType.isAssignableFrom(actualType)) {
-                    return false;
-                }
-            }
+        try {
+            return Base64.getDecoder().decode(signature);
+        } catch (IllegalArgumentException e) {
+            return null;
         }
-        
-        return true;
     }
     
     /**
-     * 检查基本类型与实际类型的匹配
-     * @param primitiveType 基本类型
-     * @param actualType 实际类型
-     * @return 是否匹配
+     * 在服务端容器中按bean名称调用方法，供同一JVM内的客户端代理回环调用
+     * @param beanName bean名称
+     * @param methodName 方法名
+     * @param args 参数数组
+     * @return 方法调用结果
+     * @throws Exception 未找到bean或调用异常，目标方法抛出的异常包装在InvocationTargetException中
      */
-    private boolean isPrimitiveMatch(Class<?> primitiveType, Class<?> actualType) {
-        if (actualType == null) {
-            return false;
+    public Object invokeLocal(String beanName, String methodName, Object[] args) throws Exception {
+        Object targetBean = getBeanByName(beanName);
+        if (targetBean == null) {
+            throw new IllegalStateException("未找到指定的bean: " + beanName);
         }
-        
-        if (primitiveType == int.class && (actualType == Integer.class || actualType == int.class)) {
-            return true;
-        } else if (primitiveType == long.class && (actualType == Long.class || actualType == long.class)) {
-            return true;
-        } else if (primitiveType == boolean.class && (actualType == Boolean.class || actualType == boolean.class)) {
-            return true;
-        } else if (primitiveType == double.class && (actualType == Double.class || actualType == double.class)) {
-            return true;
-        } else if (primitiveType == float.class && (actualType == Float.class || actualType == float.class)) {
-            return true;
-        } else if (primitiveType == char.class && (actualType == Character.class || actualType == char.class)) {
-            return true;
-        } else if (primitiveType == byte.class && (actualType == Byte.class || actualType == byte.class)) {
-            return true;
-        } else if (primitiveType == short.class && (actualType == Short.class || actualType == short.class)) {
-            return true;
-        }
-        
-        return false;
+        return TargetInvoker.invoke(targetBean, methodName, args);
     }
-    
-    
-    
+
     /**
-     * 获取参数类型的字符串表示
-     * @param args 参数数组
-     * @return 参数类型字符串
+     * 根据名称从Spring容器获取bean
+     * @param beanName bean名称
+     * @return bean对象
      */
-    private String getParameterTypes(Object[] args) {
-        if (args == null || args.length == 0) {
-            return "[]";
+    private Object getBeanByName(String beanName) {
+        try {
+            return applicationContext.getBean(beanName);
+        } catch (Exception e) {
+            logger.warn("获取bean失败: {}", beanName, e);
+            return null;
         }
-        return Arrays.toString(args);
     }
-}
+}
\ No newline at end of file
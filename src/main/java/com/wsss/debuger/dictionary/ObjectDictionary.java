@@ -0,0 +1,77 @@
+package com.wsss.debuger.dictionary;
+
+import com.wsss.debuger.utils.LruCache;
+import com.wsss.debuger.utils.ProtoStuffUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 服务端会话级对象字典
+ * 按内容摘要缓存参数的序列化数据，条目数和总字节数有限，按LRU淘汰。
+ * 每次调用重新解码，目标方法拿到独立的对象，修改参数或并发调用不会相互影响，与普通HTTP调用一致
+ */
+public class ObjectDictionary {
+
+    private final LruCache<String, byte[]> payloads;
+
+    /**
+     * @param capacity 最大条目数
+     * @param maxBytes 缓存数据的总字节数上限
+     */
+    public ObjectDictionary(int capacity, long maxBytes) {
+        this.payloads = new LruCache<>(capacity, maxBytes, payload -> payload.length);
+    }
+
+    /**
+     * 将参数中的ObjectRef还原为实际对象
+     * 先查找本次请求的全部摘要，全部命中后才登记新携带的数据，
+     * 本次请求登记新数据造成的淘汰不会影响本次请求的查找
+     * @param args 请求参数
+     * @return 还原后的参数
+     * @throws ObjectDictionaryMissException 存在未携带数据且字典中不存在的引用
+     */
+    public Object[] resolve(Object[] args) {
+        if (args == null) {
+            return null;
+        }
+        byte[][] found = null;
+        List<String> missing = null;
+        for (int i = 0; i < args.length; i++) {
+            if (!(args[i] instanceof ObjectRef)) {
+                continue;
+            }
+            if (found == null) {
+                found = new byte[args.length][];
+            }
+            ObjectRef ref = (ObjectRef) args[i];
+            byte[] payload = ref.getPayload() != null ? ref.getPayload() : payloads.get(ref.getDigest());
+            if (payload == null) {
+                if (missing == null) {
+                    missing = new ArrayList<>();
+                }
+                missing.add(ref.getDigest());
+                continue;
+            }
+            found[i] = payload;
+        }
+        if (missing != null) {
+            throw new ObjectDictionaryMissException(missing);
+        }
+        if (found == null) {
+            return args;
+        }
+        Object[] resolved = args.clone();
+        for (int i = 0; i < args.length; i++) {
+            if (found[i] == null) {
+                continue;
+            }
+            ObjectRef ref = (ObjectRef) args[i];
+            if (ref.getPayload() != null) {
+                payloads.put(ref.getDigest(), ref.getPayload());
+            }
+            resolved[i] = ProtoStuffUtil.deserializeValue(found[i]);
+        }
+        return resolved;
+    }
+}
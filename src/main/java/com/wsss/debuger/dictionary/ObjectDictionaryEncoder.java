@@ -0,0 +1,117 @@
+package com.wsss.debuger.dictionary;
+
+import com.wsss.debuger.utils.LruCache;
+import com.wsss.debuger.utils.ProtoStuffUtil;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 客户端对象字典编码器
+ * 记录服务端已持有的对象摘要，将重复发送的大参数替换为只含摘要的ObjectRef。
+ * 以服务端字典相同的条目数和字节数上限、相同的操作顺序（先查找本次请求的全部摘要，再依次登记新数据）
+ * 模拟服务端的LRU淘汰，超出字节上限的单个参数总是携带完整数据
+ */
+public class ObjectDictionaryEncoder {
+
+    // 参与字典编码的最小序列化字节数
+    private final int minSize;
+    // 服务端字典的总字节数上限
+    private final long maxBytes;
+    // 服务端仍持有的摘要及其数据长度
+    private final LruCache<String, Integer> sent;
+
+    /**
+     * @param capacity 服务端字典的最大条目数
+     * @param maxBytes 服务端字典的总字节数上限
+     * @param minSize 参与字典编码的最小序列化字节数
+     */
+    public ObjectDictionaryEncoder(int capacity, long maxBytes, int minSize) {
+        this.sent = new LruCache<>(capacity, maxBytes, length -> length);
+        this.maxBytes = maxBytes;
+        this.minSize = minSize;
+    }
+
+    /**
+     * 编码请求参数
+     * @param args 原始参数
+     * @return 大参数被替换为ObjectRef后的参数，无需替换时返回原数组
+     */
+    public Object[] encode(Object[] args) {
+        if (args == null || args.length == 0) {
+            return args;
+        }
+        Object[] encoded = null;
+        List<ObjectRef> added = null;
+        for (int i = 0; i < args.length; i++) {
+            Object arg = args[i];
+            if (!isCandidate(arg)) {
+                continue;
+            }
+            byte[] payload = ProtoStuffUtil.serializeValue(arg);
+            if (payload.length < minSize) {
+                continue;
+            }
+            String digest = digest(payload);
+            if (encoded == null) {
+                encoded = args.clone();
+            }
+            if (sent.get(digest) != null) {
+                encoded[i] = new ObjectRef(digest, null);
+            } else {
+                ObjectRef ref = new ObjectRef(digest, payload);
+                encoded[i] = ref;
+                if (payload.length <= maxBytes) {
+                    if (added == null) {
+                        added = new ArrayList<>();
+                    }
+                    added.add(ref);
+                }
+            }
+        }
+        // 与服务端一致：本次请求的摘要全部查找完毕后再登记新数据
+        if (added != null) {
+            for (ObjectRef ref : added) {
+                sent.put(ref.getDigest(), ref.getPayload().length);
+            }
+        }
+        return encoded == null ? args : encoded;
+    }
+
+    /**
+     * 服务端未命中时移除对应摘要，下次编码将重新携带完整数据
+     * @param digests 未命中的摘要
+     */
+    public void forget(Collection<String> digests) {
+        for (String digest : digests) {
+            sent.remove(digest);
+        }
+    }
+
+    /**
+     * 过滤明显不值得编码的小参数，避免无谓的序列化
+     */
+    private boolean isCandidate(Object arg) {
+        if (arg == null || arg instanceof Number || arg instanceof Boolean
+                || arg instanceof Character || arg instanceof Enum) {
+            return false;
+        }
+        if (arg instanceof CharSequence) {
+            return ((CharSequence) arg).length() * 3 >= minSize;
+        }
+        return true;
+    }
+
+    private static String digest(byte[] payload) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(md.digest(payload));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
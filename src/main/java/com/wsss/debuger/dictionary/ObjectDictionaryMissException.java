@@ -0,0 +1,30 @@
+package com.wsss.debuger.dictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 服务端对象字典未命中异常
+ * 异常消息为逗号分隔的缺失摘要，客户端据此重新发送完整数据
+ */
+public class ObjectDictionaryMissException extends RuntimeException {
+
+    private static final String SEPARATOR = ",";
+
+    public ObjectDictionaryMissException(List<String> digests) {
+        super(String.join(SEPARATOR, digests));
+    }
+
+    /**
+     * 从异常消息中解析缺失的摘要
+     * @param message 异常消息
+     * @return 缺失的摘要列表
+     */
+    public static List<String> parseDigests(String message) {
+        if (message == null || message.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return Arrays.asList(message.split(SEPARATOR));
+    }
+}
@@ -0,0 +1,43 @@
+package com.wsss.debuger.dictionary;
+
+/**
+ * 对象字典引用
+ * 客户端用它替换请求参数中的大对象：首次发送时携带序列化数据，
+ * 服务端已持有该对象后只发送摘要
+ */
+public class ObjectRef {
+
+    // 序列化数据的内容摘要
+    private String digest;
+    // 序列化数据，服务端已持有时为null
+    private byte[] payload;
+
+    public ObjectRef() {
+    }
+
+    public ObjectRef(String digest, byte[] payload) {
+        this.digest = digest;
+        this.payload = payload;
+    }
+
+    public String getDigest() {
+        return digest;
+    }
+
+    public void setDigest(String digest) {
+        this.digest = digest;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+
+    @Override
+    public String toString() {
+        return "ObjectRef{digest=" + digest + ", inline=" + (payload != null ? payload.length : 0) + "}";
+    }
+}
@@ -0,0 +1,46 @@
+package com.wsss.debuger.hedge;
+
+import java.net.HttpURLConnection;
+
+/**
+ * 一次对冲尝试
+ * 持有该尝试当前使用的连接，输掉的尝试通过断开连接取消阻塞中的读写
+ */
+public class HedgeAttempt {
+
+    // 0为首次请求，1为对冲请求
+    private final int index;
+    private volatile HttpURLConnection connection;
+    private volatile boolean cancelled;
+
+    public HedgeAttempt(int index) {
+        this.index = index;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * 登记当前连接，已取消时立即断开
+     * @param connection 连接
+     */
+    public void attach(HttpURLConnection connection) {
+        this.connection = connection;
+        if (cancelled) {
+            connection.disconnect();
+        }
+    }
+
+    public void cancel() {
+        cancelled = true;
+        HttpURLConnection current = connection;
+        if (current != null) {
+            current.disconnect();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
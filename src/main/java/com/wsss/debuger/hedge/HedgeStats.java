@@ -0,0 +1,48 @@
+package com.wsss.debuger.hedge;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 对冲请求统计
+ */
+public class HedgeStats {
+
+    // 可对冲（幂等）的调用数
+    final LongAdder calls = new LongAdder();
+    // 发出的对冲请求数
+    final LongAdder hedged = new LongAdder();
+    // 对冲请求先于首次请求返回的次数
+    final LongAdder hedgeWins = new LongAdder();
+    // 因预算不足放弃对冲的次数
+    final LongAdder budgetExhausted = new LongAdder();
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getHedged() {
+        return hedged.sum();
+    }
+
+    public long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    public long getBudgetExhausted() {
+        return budgetExhausted.sum();
+    }
+
+    /**
+     * @return 对冲率
+     */
+    public double getHedgeRate() {
+        long total = getCalls();
+        return total == 0 ? 0 : (double) getHedged() / total;
+    }
+
+    @Override
+    public String toString() {
+        return "HedgeStats{calls=" + getCalls() + ", hedged=" + getHedged() + ", hedgeWins=" + getHedgeWins()
+                + ", budgetExhausted=" + getBudgetExhausted() + "}";
+    }
+}
@@ -0,0 +1,199 @@
+package com.wsss.debuger.hedge;
+
+import com.wsss.debuger.config.DebugerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对冲请求
+ * 幂等方法的远程调用在超过最近延迟的指定百分位仍未返回时，向另一个目标（或同一目标的新连接）重复发送，
+ * 先返回的结果生效，另一个请求被取消。对冲预算按调用数累积，限制额外请求占比
+ */
+@Component
+public class Hedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(Hedger.class);
+
+    // 预算以千分之一个请求为单位
+    private static final long TOKEN = 1000;
+    private static final long MAX_TOKENS = 10 * TOKEN;
+
+    @Autowired
+    private DebugerConfig debugerConfig;
+
+    private final HedgeStats stats = new HedgeStats();
+    private final Map<String, LatencyTracker> trackers = new ConcurrentHashMap<>();
+    private final AtomicLong budget = new AtomicLong(MAX_TOKENS);
+    private final AtomicInteger nextUrl = new AtomicInteger();
+    private ExecutorService executor;
+    private long deposit;
+    private long minDelayNanos;
+
+    /**
+     * 一次请求的发送逻辑
+     */
+    public interface HedgeCall<T> {
+        /**
+         * @param attempt 本次尝试
+         * @return 结果，为null表示未收到响应
+         */
+        T send(HedgeAttempt attempt) throws Exception;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!debugerConfig.isHedgeEnable()) {
+            return;
+        }
+        deposit = (long) (debugerConfig.getHedgeBudgetRatio() * TOKEN);
+        minDelayNanos = TimeUnit.MILLISECONDS.toNanos(debugerConfig.getHedgeMinDelay());
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "debuger-hedge-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("对冲请求已启用: percentile={}, minDelay={}ms, budgetRatio={}, urls={}",
+                debugerConfig.getHedgePercentile(), debugerConfig.getHedgeMinDelay(),
+                debugerConfig.getHedgeBudgetRatio(), debugerConfig.getHedgeUrls());
+    }
+
+    @PreDestroy
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return executor != null;
+    }
+
+    public HedgeStats getStats() {
+        return stats;
+    }
+
+    /**
+     * 选择本次尝试的目标地址：首次请求使用原地址，对冲请求轮流使用配置的备用地址，未配置时使用原地址的新连接
+     * @param url 原地址
+     * @param attempt 本次尝试
+     * @return 目标地址
+     */
+    public String target(String url, HedgeAttempt attempt) {
+        List<String> urls = debugerConfig.getHedgeUrls();
+        if (attempt.getIndex() == 0 || urls == null || urls.isEmpty()) {
+            return url;
+        }
+        return urls.get(Math.abs(nextUrl.getAndIncrement() % urls.size()));
+    }
+
+    /**
+     * 执行可对冲的调用
+     * @param key 延迟统计的分组，通常为 beanName.methodName
+     * @param call 发送逻辑，可能在两个线程上并发执行
+     * @return 先返回的非null结果；都未返回时为null
+     */
+    public <T> T execute(String key, HedgeCall<T> call) throws Exception {
+        stats.calls.increment();
+        depositBudget();
+        LatencyTracker tracker = trackers.computeIfAbsent(key,
+                k -> new LatencyTracker(debugerConfig.getHedgePercentile(), minDelayNanos));
+        long startTime = System.nanoTime();
+        long delay = tracker.getDelayNanos();
+        if (delay < 0) {
+            // 样本不足，直接在调用线程上发送
+            T result = call.send(new HedgeAttempt(0));
+            tracker.record(System.nanoTime() - startTime);
+            return result;
+        }
+
+        ExecutorCompletionService<T> completion = new ExecutorCompletionService<>(executor);
+        Map<Future<T>, HedgeAttempt> attempts = new HashMap<>(4);
+        HedgeAttempt primary = new HedgeAttempt(0);
+        attempts.put(completion.submit(() -> call.send(primary)), primary);
+
+        Future<T> done = completion.poll(delay, TimeUnit.NANOSECONDS);
+        if (done == null) {
+            if (tryAcquireBudget()) {
+                stats.hedged.increment();
+                HedgeAttempt hedge = new HedgeAttempt(1);
+                attempts.put(completion.submit(() -> call.send(hedge)), hedge);
+            } else {
+                stats.budgetExhausted.increment();
+            }
+        }
+
+        try {
+            Exception failure = null;
+            for (int remaining = attempts.size(); remaining > 0; remaining--) {
+                if (done == null) {
+                    done = completion.take();
+                }
+                try {
+                    T result = done.get();
+                    if (result != null || remaining == 1) {
+                        if (attempts.get(done).getIndex() > 0) {
+                            stats.hedgeWins.increment();
+                        }
+                        tracker.record(System.nanoTime() - startTime);
+                        return result;
+                    }
+                } catch (ExecutionException e) {
+                    failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                    if (remaining == 1) {
+                        throw failure;
+                    }
+                }
+                // 本次尝试失败，等待另一个
+                done = null;
+            }
+            return null;
+        } finally {
+            // 取消仍在进行的尝试
+            for (Map.Entry<Future<T>, HedgeAttempt> entry : attempts.entrySet()) {
+                if (!entry.getKey().isDone()) {
+                    entry.getValue().cancel();
+                    entry.getKey().cancel(true);
+                }
+            }
+        }
+    }
+
+    private void depositBudget() {
+        long current;
+        do {
+            current = budget.get();
+            if (current >= MAX_TOKENS) {
+                return;
+            }
+        } while (!budget.compareAndSet(current, Math.min(MAX_TOKENS, current + deposit)));
+    }
+
+    private boolean tryAcquireBudget() {
+        long current;
+        do {
+            current = budget.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!budget.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+}
@@ -0,0 +1,50 @@
+package com.wsss.debuger.hedge;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 最近调用延迟的滑动窗口
+ * 每记录一批样本重新计算一次指定百分位，作为对冲延迟
+ */
+public class LatencyTracker {
+
+    private static final int WINDOW = 1024;
+    private static final int RECOMPUTE_INTERVAL = 64;
+    // 样本不足时不对冲
+    private static final int MIN_SAMPLES = 32;
+
+    private final long[] samples = new long[WINDOW];
+    private final AtomicLong count = new AtomicLong();
+    private final double percentile;
+    private final long minDelayNanos;
+    private volatile long delayNanos = -1;
+
+    public LatencyTracker(double percentile, long minDelayNanos) {
+        this.percentile = percentile;
+        this.minDelayNanos = minDelayNanos;
+    }
+
+    public void record(long latencyNanos) {
+        long n = count.getAndIncrement();
+        samples[(int) (n % WINDOW)] = latencyNanos;
+        long recorded = n + 1;
+        if (recorded == MIN_SAMPLES || (recorded > MIN_SAMPLES && recorded % RECOMPUTE_INTERVAL == 0)) {
+            recompute((int) Math.min(recorded, WINDOW));
+        }
+    }
+
+    /**
+     * @return 对冲延迟（纳秒），样本不足时返回-1
+     */
+    public long getDelayNanos() {
+        return delayNanos;
+    }
+
+    private void recompute(int size) {
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.min(size - 1, Math.ceil(percentile / 100 * size) - 1);
+        delayNanos = Math.max(minDelayNanos, sorted[Math.max(0, index)]);
+    }
+}
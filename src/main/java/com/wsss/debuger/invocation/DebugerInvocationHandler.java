@@ -1,14 +1,44 @@
 package com.wsss.debuger.invocation;
 
+import com.wsss.debuger.annotation.Idempotent;
+import com.wsss.debuger.annotation.Projection;
+import com.wsss.debuger.attachment.AttachmentCodec;
+import com.wsss.debuger.attachment.OutboundAttachment;
+import com.wsss.debuger.calllog.CallEvent;
+import com.wsss.debuger.calllog.CallLog;
 import com.wsss.debuger.config.DebugerConfig;
+import com.wsss.debuger.controller.DebugerController;
+import com.wsss.debuger.dictionary.ObjectDictionaryEncoder;
+import com.wsss.debuger.dictionary.ObjectDictionaryMissException;
+import com.wsss.debuger.hedge.HedgeAttempt;
+import com.wsss.debuger.hedge.Hedger;
 import com.wsss.debuger.model.DebugRequest;
+import com.wsss.debuger.model.DebugerHeaders;
 import com.wsss.debuger.model.DebugResponse;
+import com.wsss.debuger.session.ClientSession;
+import com.wsss.debuger.session.HandshakeRequest;
+import com.wsss.debuger.session.HandshakeResponse;
+import com.wsss.debuger.session.SessionExpiredException;
+import com.wsss.debuger.session.SessionProtocol;
+import com.wsss.debuger.trace.TraceContext;
+import com.wsss.debuger.trace.Tracer;
+import com.wsss.debuger.utils.DeepCopyUtil;
+import com.wsss.debuger.utils.HmacUtil;
+import com.wsss.debuger.utils.ProjectionUtil;
 import com.wsss.debuger.utils.ProtoStuffUtil;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Debuger方法调用处理器
@@ -16,41 +46,57 @@ import org.slf4j.LoggerFactory;
 public class DebugerInvocationHandler implements MethodInterceptor {
 
     private static final Logger logger = LoggerFactory.getLogger(DebugerInvocationHandler.class);
+
+    // 按服务端地址共享的会话，同一地址的所有代理共用一个会话
+    private static final Map<String, ClientSession> sessions = new ConcurrentHashMap<>();
+    // 各服务端地址的握手锁
+    private static final Map<String, Object> handshakeLocks = new ConcurrentHashMap<>();
     
     // Spring中的Bean名称
     private final String beanName;
     // Debuger配置
     private final DebugerConfig debugerConfig;
+    // 调用跟踪
+    private final Tracer tracer;
+    // 调用日志
+    private final CallLog callLog;
+    // 同一JVM内的服务端控制器，不为null时回环调用，不经过HTTP
+    private final DebugerController loopbackTarget;
+    // 对冲请求
+    private final Hedger hedger;
+    // 各方法的返回值字段投影，未声明时为空串
+    private final Map<Method, String> projections = new ConcurrentHashMap<>();
 
 
     /**
      * 构造函数（带配置）
      * @param beanName Spring中的Bean名称
      * @param debugerConfig Debuger配置
+     * @param tracer 调用跟踪
+     * @param callLog 调用日志
+     * @param loopbackTarget 同一JVM内的服务端控制器，为null时经HTTP调用
+     * @param hedger 对冲请求
      */
-    public DebugerInvocationHandler(String beanName, DebugerConfig debugerConfig) {
+    public DebugerInvocationHandler(String beanName, DebugerConfig debugerConfig, Tracer tracer, CallLog callLog,
+                                    DebugerController loopbackTarget, Hedger hedger) {
         this.beanName = beanName;
         this.debugerConfig = debugerConfig;
+        this.tracer = tracer;
+        this.callLog = callLog;
+        this.loopbackTarget = loopbackTarget;
+        this.hedger = hedger;
     }
     
     /**
      * 发送HTTP POST请求
      * @param url 请求地址
      * @param data 请求数据
+     * @param headers 附加请求头
      * @return 响应数据
      */
-    private byte[] sendHttpRequest(String url, byte[] data) {
+    private byte[] sendHttpRequest(String url, byte[] data, Map<String, String> headers) {
         try {
-            java.net.URL requestUrl = new java.net.URL(url);
-            java.net.HttpURLConnection conn = (java.net.HttpURLConnection) requestUrl.openConnection();
-            
-            // 设置请求方法和请求头
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Content-Type", "application/octet-stream");
-            conn.setRequestProperty("Content-Length", String.valueOf(data.length));
-            conn.setDoOutput(true);
-            conn.setConnectTimeout(5000);
-            conn.setReadTimeout(30000);
+            java.net.HttpURLConnection conn = openConnection(url, headers, data.length);
             
             // 发送数据
             try (java.io.OutputStream os = conn.getOutputStream()) {
@@ -62,14 +108,8 @@ public class DebugerInvocationHandler implements MethodInterceptor {
             int responseCode = conn.getResponseCode();
             if (responseCode == java.net.HttpURLConnection.HTTP_OK) {
                 // 读取响应数据
-                try (java.io.InputStream is = conn.getInputStream();
-                     java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream()) {
-                    byte[] buffer = new byte[4096];
-                    int bytesRead;
-                    while ((bytesRead = is.read(buffer)) != -1) {
-                        baos.write(buffer, 0, bytesRead);
-                    }
-                    return baos.toByteArray();
+                try (java.io.InputStream is = conn.getInputStream()) {
+                    return readFully(is);
                 }
             } else {
                 logger.error("HTTP请求失败，响应码: {}", responseCode);
@@ -82,43 +122,181 @@ public class DebugerInvocationHandler implements MethodInterceptor {
         return null;
     }
 
+    /**
+     * 发送调试请求帧并接收响应
+     * 请求和响应都可能在信封之后携带带外附件，附件以定长流式方式收发，不在堆上整体缓冲
+     * @param url 请求地址
+     * @param envelope 序列化的DebugRequest
+     * @param attachments 请求附件
+     * @param headers 附加请求头
+     * @param attempt 对冲尝试，用于取消，非对冲调用为null
+     * @return 反序列化后的响应，未收到响应时返回null
+     */
+    private DebugResponse exchange(String url, byte[] envelope, List<OutboundAttachment> attachments,
+                                   Map<String, String> headers, HedgeAttempt attempt) {
+        try {
+            boolean framed = !attachments.isEmpty();
+            java.net.HttpURLConnection conn = openConnection(url, headers,
+                    framed ? AttachmentCodec.frameLength(envelope, attachments) : envelope.length);
+            if (attempt != null) {
+                attempt.attach(conn);
+            }
+            
+            // 发送数据
+            try (java.io.OutputStream os = conn.getOutputStream()) {
+                if (framed) {
+                    AttachmentCodec.writeFrame(os, envelope, attachments);
+                } else {
+                    os.write(envelope);
+                }
+                os.flush();
+            }
+            
+            // 检查响应状态
+            int responseCode = conn.getResponseCode();
+            if (responseCode != java.net.HttpURLConnection.HTTP_OK) {
+                logger.error("HTTP请求失败，响应码: {}", responseCode);
+                conn.disconnect();
+                return null;
+            }
+            
+            // 读取响应数据
+            int count = AttachmentCodec.parseCount(conn.getHeaderField(DebugerHeaders.ATTACHMENTS));
+            try (java.io.InputStream is = conn.getInputStream()) {
+                if (count == 0) {
+                    byte[] responseBytes = readFully(is);
+                    return responseBytes.length > 0 ? ProtoStuffUtil.deserialize(responseBytes, DebugResponse.class) : null;
+                }
+                java.io.DataInputStream in = new java.io.DataInputStream(new java.io.BufferedInputStream(is, 64 * 1024));
+                long frameLength = conn.getContentLengthLong();
+                if (frameLength < 0) {
+                    throw new java.io.IOException("带附件的响应缺少Content-Length");
+                }
+                byte[] responseEnvelope = AttachmentCodec.readEnvelope(in, frameLength, debugerConfig.getMaxBodySize());
+                List<Object> received = AttachmentCodec.readAttachments(in, count,
+                        AttachmentCodec.remaining(frameLength, responseEnvelope), debugerConfig.getAttachmentTempDir(),
+                        null);
+                DebugResponse response = ProtoStuffUtil.deserialize(responseEnvelope, DebugResponse.class);
+                response.setResult(AttachmentCodec.resolve(response.getResult(), received));
+                return response;
+            }
+        } catch (Exception e) {
+            if (attempt != null && attempt.isCancelled()) {
+                logger.debug("对冲请求已取消: {}", url);
+            } else {
+                logger.error("发送HTTP请求异常: {}", e.getMessage(), e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 建立定长流式发送的POST连接
+     * @param url 请求地址
+     * @param headers 附加请求头
+     * @param contentLength 请求体长度
+     * @return 连接
+     */
+    private java.net.HttpURLConnection openConnection(String url, Map<String, String> headers, long contentLength)
+            throws java.io.IOException {
+        java.net.URL requestUrl = new java.net.URL(url);
+        java.net.HttpURLConnection conn = (java.net.HttpURLConnection) requestUrl.openConnection();
+        
+        // 设置请求方法和请求头
+        conn.setRequestMethod("POST");
+        conn.setRequestProperty("Content-Type", "application/octet-stream");
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            conn.setRequestProperty(header.getKey(), header.getValue());
+        }
+        conn.setFixedLengthStreamingMode(contentLength);
+        conn.setDoOutput(true);
+        conn.setConnectTimeout(5000);
+        conn.setReadTimeout(30000);
+        return conn;
+    }
+
+    private static byte[] readFully(java.io.InputStream is) throws java.io.IOException {
+        try (java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream()) {
+            byte[] buffer = new byte[4096];
+            int bytesRead;
+            while ((bytesRead = is.read(buffer)) != -1) {
+                baos.write(buffer, 0, bytesRead);
+            }
+            return baos.toByteArray();
+        }
+    }
+
     @Override
     public Object invoke(MethodInvocation invocation) throws Throwable {
         if (Object.class.equals(invocation.getMethod().getDeclaringClass())
             || !debugerConfig.isEnable()) {
             return invocation.proceed();
         }
-        if(debugerConfig.getPassword() == null || debugerConfig.getPassword().trim().isEmpty()) {
+        if (loopbackTarget == null && (debugerConfig.getPassword() == null || debugerConfig.getPassword().trim().isEmpty())) {
             throw new UnsupportedOperationException("debuger.password is empty");
         }
-        
-        // 创建DebugRequest对象，包含所有必要信息
-        DebugRequest request = new DebugRequest(
-            beanName,
-            invocation.getMethod().getName(),
-            invocation.getArguments(),
-            debugerConfig.getPassword()
-        );
-        
-        // 序列化请求对象
-        byte[] bytes = ProtoStuffUtil.serialize(request);
+
+        // 未采样时不记录任何跟踪信息
+        TraceContext trace = tracer.startTrace();
+        if (trace == null) {
+            return remoteInvoke(invocation, null);
+        }
+        long startTime = System.nanoTime();
+        Throwable error = null;
+        try {
+            return remoteInvoke(invocation, trace);
+        } catch (Throwable t) {
+            error = t;
+            throw t;
+        } finally {
+            tracer.finish(trace, "client.invoke", beanName, invocation.getMethod().getName(), startTime, error);
+        }
+    }
+
+    /**
+     * 将调用转发到服务端
+     * @param invocation 方法调用
+     * @param trace 跟踪上下文，未采样时为null
+     * @return 方法调用结果
+     */
+    private Object remoteInvoke(MethodInvocation invocation, TraceContext trace) throws Throwable {
+        if (loopbackTarget != null) {
+            return loopbackInvoke(invocation);
+        }
+        long startTime = System.nanoTime();
         String url = debugerConfig.getUrl();
+        Object[] arguments = invocation.getArguments();
+
+        // 大块二进制参数作为带外附件发送，只提取一次，重发时复用
+        List<OutboundAttachment> attachments = new ArrayList<>(0);
+        Object[] sent = AttachmentCodec.extract(arguments, attachments,
+                debugerConfig.getAttachmentMinSize(), debugerConfig.getAttachmentTempDir());
+        DebugResponse response;
+        try {
+            if (hedger.isEnabled() && invocation.getMethod().isAnnotationPresent(Idempotent.class)) {
+                // 幂等方法：响应过慢时发送对冲请求，先返回者生效
+                response = hedger.execute(beanName + "." + invocation.getMethod().getName(),
+                        attempt -> sendWithRetry(invocation, hedger.target(url, attempt), sent, attachments,
+                                trace, attempt));
+            } else {
+                response = sendWithRetry(invocation, url, sent, attachments, trace, null);
+            }
+        } finally {
+            AttachmentCodec.release(attachments);
+        }
         
-        logger.info("发送调试请求: {}", request);
-        
-        // 发送HTTP请求
-        byte[] responseBytes = sendHttpRequest(url, bytes);
-        
-        // 反序列化响应结果
-        if (responseBytes != null && responseBytes.length > 0) {
-            DebugResponse response = ProtoStuffUtil.deserialize(responseBytes, DebugResponse.class);
+        // 处理响应结果
+        if (response != null) {
             
             if (response.isSuccess()) {
                 // 调用成功，返回结果
-                logger.info("调试响应成功: 执行时间={}ms", response.getExecutionTime());
+                callLog.record(CallEvent.CLIENT, beanName, invocation.getMethod().getName(), arguments,
+                        response.getResult(), System.nanoTime() - startTime, true);
                 return response.getResult();
             } else {
                 // 调用失败，抛出异常
+                callLog.record(CallEvent.CLIENT, beanName, invocation.getMethod().getName(), arguments,
+                        null, System.nanoTime() - startTime, false);
                 logger.error("调试响应失败: {} - {}", response.getExceptionClass(), response.getErrorMessage());
                 // 尝试根据异常类名创建并抛出异常
                 if (response.getExceptionClass() != null) {
@@ -142,6 +320,206 @@ public class DebugerInvocationHandler implements MethodInterceptor {
         logger.warn("未收到调试响应，执行本地方法");
         return invocation.proceed();
     }
-    
-    
+
+    /**
+     * 发送调试请求，会话过期或字典未命中时各重发一次
+     * @param invocation 方法调用
+     * @param url 请求地址
+     * @param arguments 已提取附件的参数
+     * @param attachments 请求附件
+     * @param trace 跟踪上下文，未采样时为null
+     * @param attempt 对冲尝试，非对冲调用为null
+     * @return 反序列化后的响应，未收到响应时返回null
+     */
+    private DebugResponse sendWithRetry(MethodInvocation invocation, String url, Object[] arguments,
+                                        List<OutboundAttachment> attachments, TraceContext trace,
+                                        HedgeAttempt attempt) {
+        ClientSession session = getSession(url);
+        DebugResponse response = session != null
+                ? sendDebugRequest(invocation, url, session, arguments, attachments, trace, attempt) : null;
+        if (isFailure(response, SessionExpiredException.class)) {
+            // 服务端会话过期（重启或空闲超时），重新握手后重发一次
+            logger.info("会话已过期，重新握手: {}", url);
+            sessions.remove(url, session);
+            session = getSession(url);
+            response = session != null
+                    ? sendDebugRequest(invocation, url, session, arguments, attachments, trace, attempt) : null;
+        }
+        if (isFailure(response, ObjectDictionaryMissException.class) && session.getEncoder() != null) {
+            // 服务端字典未命中（已淘汰），移除对应摘要后携带完整数据重发一次
+            logger.debug("对象字典未命中，重新发送完整参数: {}", response.getErrorMessage());
+            session.getEncoder().forget(ObjectDictionaryMissException.parseDigests(response.getErrorMessage()));
+            response = sendDebugRequest(invocation, url, session, arguments, attachments, trace, attempt);
+        }
+        return response;
+    }
+
+    /**
+     * 本地回环调用
+     * 交给服务端容器中同名的bean执行，参数和返回值经深拷贝隔离，效果等同于经过序列化传输
+     * @param invocation 方法调用
+     * @return 方法调用结果的副本
+     */
+    private Object loopbackInvoke(MethodInvocation invocation) throws Throwable {
+        long startTime = System.nanoTime();
+        String methodName = invocation.getMethod().getName();
+        Object[] arguments = DeepCopyUtil.copy(invocation.getArguments());
+        Object result;
+        try {
+            result = loopbackTarget.invokeLocal(beanName, methodName, arguments);
+        } catch (InvocationTargetException e) {
+            callLog.record(CallEvent.CLIENT, beanName, methodName, arguments, null, System.nanoTime() - startTime, false);
+            throw e.getTargetException();
+        }
+        callLog.record(CallEvent.CLIENT, beanName, methodName, arguments, result, System.nanoTime() - startTime, true);
+        // 先投影再复制，未投影的字段不必复制
+        return DeepCopyUtil.copy(ProjectionUtil.project(result, getProjection(invocation.getMethod())));
+    }
+
+    /**
+     * 获取方法的返回值字段投影，配置优先于@Projection注解
+     * @param method 被调用的方法
+     * @return 逗号分隔的字段路径，未声明或未开启时返回null
+     */
+    private String getProjection(Method method) {
+        if (!debugerConfig.isProjectionEnable()) {
+            return null;
+        }
+        String projection = projections.computeIfAbsent(method, m -> {
+            String configured = debugerConfig.getProjection(beanName, m.getName());
+            if (configured != null && !configured.trim().isEmpty()) {
+                return configured.trim();
+            }
+            Projection annotation = m.getAnnotation(Projection.class);
+            return annotation != null ? String.join(",", annotation.value()) : "";
+        });
+        return projection.isEmpty() ? null : projection;
+    }
+
+    /**
+     * 构建并发送调试请求
+     * @param invocation 方法调用
+     * @param url 请求地址
+     * @param session 客户端会话
+     * @param arguments 已提取附件的参数
+     * @param attachments 请求附件
+     * @param trace 跟踪上下文，未采样时为null
+     * @param attempt 对冲尝试，非对冲调用为null
+     * @return 反序列化后的响应，未收到响应时返回null
+     */
+    private DebugResponse sendDebugRequest(MethodInvocation invocation, String url, ClientSession session,
+                                           Object[] arguments, List<OutboundAttachment> attachments,
+                                           TraceContext trace, HedgeAttempt attempt) {
+        try {
+            ObjectDictionaryEncoder encoder = session.getEncoder();
+            // 创建DebugRequest对象，身份由会话签名保证，不再携带密码
+            DebugRequest request = new DebugRequest(
+                beanName,
+                invocation.getMethod().getName(),
+                encoder != null ? encoder.encode(arguments) : arguments,
+                null
+            );
+            
+            // 序列化请求对象
+            byte[] bytes = ProtoStuffUtil.serialize(request);
+            
+            // 发送HTTP请求，签名覆盖序号、影响服务端处理的请求头和整个帧（含附件）
+            Map<String, String> headers = new HashMap<>(8);
+            long sequence = session.nextSequence();
+            String attachmentCount = attachments.isEmpty() ? null : String.valueOf(attachments.size());
+            String traceHeader = trace != null ? trace.toHeader() : null;
+            String projection = getProjection(invocation.getMethod());
+            headers.put(DebugerHeaders.SESSION, session.getId());
+            headers.put(DebugerHeaders.SEQUENCE, String.valueOf(sequence));
+            if (attachmentCount != null) {
+                headers.put(DebugerHeaders.ATTACHMENTS, attachmentCount);
+            }
+            if (traceHeader != null) {
+                headers.put(DebugerHeaders.TRACE, traceHeader);
+            }
+            if (projection != null) {
+                headers.put(DebugerHeaders.PROJECTION, projection);
+            }
+            byte[] prefix = SessionProtocol.signedPrefix(sequence, attachmentCount, traceHeader, projection);
+            headers.put(DebugerHeaders.SIGNATURE, attachments.isEmpty()
+                    ? session.sign(prefix, bytes) : session.sign(prefix, bytes, attachments));
+            return exchange(url, bytes, attachments, headers, attempt);
+        } catch (java.io.IOException e) {
+            logger.error("读取附件失败: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 获取服务端地址对应的会话，不存在时进行握手
+     * @param url 服务端地址
+     * @return 会话，握手请求未收到响应时返回null
+     */
+    private ClientSession getSession(String url) {
+        ClientSession session = sessions.get(url);
+        if (session == null) {
+            // 按地址加锁，一个地址握手缓慢或不可达时不阻塞其他地址（如对冲地址）的调用
+            synchronized (handshakeLocks.computeIfAbsent(url, k -> new Object())) {
+                session = sessions.get(url);
+                if (session == null) {
+                    session = handshake(url);
+                    if (session != null) {
+                        sessions.put(url, session);
+                    }
+                }
+            }
+        }
+        return session;
+    }
+
+    /**
+     * 与服务端握手，推导会话密钥并协商协议版本、编解码和压缩方式
+     * @param url 服务端调用地址
+     * @return 会话，未收到响应时返回null
+     */
+    private ClientSession handshake(String url) {
+        String password = debugerConfig.getPassword();
+        byte[] clientNonce = HmacUtil.randomBytes(SessionProtocol.NONCE_LENGTH);
+        HandshakeRequest request = new HandshakeRequest();
+        request.setClientNonce(clientNonce);
+        request.setTimestamp(System.currentTimeMillis());
+        request.setProof(SessionProtocol.proof(password, clientNonce, request.getTimestamp()));
+        request.setProtocolVersion(SessionProtocol.PROTOCOL_VERSION);
+        request.setCodecs(new String[]{SessionProtocol.CODEC_PROTOSTUFF});
+        request.setCompressions(new String[]{SessionProtocol.COMPRESSION_NONE});
+
+        byte[] responseBytes = sendHttpRequest(SessionProtocol.handshakeUrl(url),
+                ProtoStuffUtil.serialize(request), Collections.<String, String>emptyMap());
+        if (responseBytes == null || responseBytes.length == 0) {
+            return null;
+        }
+        HandshakeResponse response = ProtoStuffUtil.deserialize(responseBytes, HandshakeResponse.class);
+        if (!response.isSuccess()) {
+            logger.error("握手失败: {}", response.getErrorMessage());
+            throw new SecurityException(response.getErrorMessage());
+        }
+        logger.info("握手成功: sessionId={}, version={}, codec={}, compression={}", response.getSessionId(),
+                response.getProtocolVersion(), response.getCodec(), response.getCompression());
+
+        // 按服务端字典的上限跟踪服务端持有的摘要，避免发送服务端不会保留的摘要引用
+        ObjectDictionaryEncoder encoder = debugerConfig.isDictionaryEnable()
+                ? new ObjectDictionaryEncoder(
+                        response.getDictionaryCapacity() > 0 ? response.getDictionaryCapacity()
+                                : debugerConfig.getDictionaryCapacity(),
+                        response.getDictionaryMaxBytes() > 0 ? response.getDictionaryMaxBytes()
+                                : debugerConfig.getDictionaryMaxBytes(),
+                        debugerConfig.getDictionaryMinSize())
+                : null;
+        return new ClientSession(response.getSessionId(),
+                SessionProtocol.sessionKey(password, clientNonce, response.getServerNonce()),
+                response.getProtocolVersion(), response.getCodec(), response.getCompression(), encoder);
+    }
+
+    /**
+     * 判断响应是否为指定异常导致的失败
+     */
+    private static boolean isFailure(DebugResponse response, Class<? extends Throwable> exceptionClass) {
+        return response != null && !response.isSuccess()
+                && exceptionClass.getName().equals(response.getExceptionClass());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,162 @@
+package com.wsss.debuger.invocation;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * 目标方法调用
+ * 按方法名和实际参数类型查找方法（考虑重载）并反射调用，服务端和本地回环共用
+ */
+public class TargetInvoker {
+
+    /**
+     * 调用指定对象的方法
+     * @param target 目标对象
+     * @param methodName 方法名
+     * @param args 参数数组
+     * @return 方法调用结果
+     * @throws Exception 调用异常
+     */
+    public static Object invoke(Object target, String methodName, Object[] args) throws Exception {
+        if (target == null) {
+            throw new IllegalArgumentException("目标对象不能为空");
+        }
+        
+        Class<?> targetClass = target.getClass();
+        
+        // 查找方法
+        Method method = findMethod(targetClass, methodName, args);
+        if (method != null) {
+            // 设置方法可访问
+            method.setAccessible(true);
+            // 调用方法
+            return method.invoke(target, args);
+        } else {
+            throw new NoSuchMethodException("未找到方法: " + methodName + " 参数类型: " + getParameterTypes(args));
+        }
+    }
+    
+    /**
+     * 查找匹配的方法（考虑重载）
+     * @param targetClass 目标类
+     * @param methodName 方法名
+     * @param args 参数数组
+     * @return 找到的方法对象
+     */
+    private static Method findMethod(Class<?> targetClass, String methodName, Object[] args) {
+        Method[] methods = targetClass.getDeclaredMethods();
+        
+        // 构建参数类型数组
+        Class<?>[] paramTypes = null;
+        if (args != null) {
+            paramTypes = new Class<?>[args.length];
+            for (int i = 0; i < args.length; i++) {
+                if (args[i] == null) {
+                    // 对于null参数，使用Object.class作为类型
+                    paramTypes[i] = Object.class;
+                } else {
+                    paramTypes[i] = args[i].getClass();
+                }
+            }
+        }
+        
+        // 查找匹配的方法
+        for (Method method : methods) {
+            if (method.getName().equals(methodName) && isParameterTypesMatch(method.getParameterTypes(), paramTypes)) {
+                return method;
+            }
+        }
+        
+        // 如果当前类没找到，尝试在父类中查找
+        Class<?> superClass = targetClass.getSuperclass();
+        if (superClass != null && superClass != Object.class) {
+            return findMethod(superClass, methodName, args);
+        }
+        
+        return null;
+    }
+    
+    /**
+     * 检查参数类型是否匹配
+     * @param methodParamTypes 方法声明的参数类型
+     * @param actualParamTypes 实际参数的类型
+     * @return 是否匹配
+     */
+    private static boolean isParameterTypesMatch(Class<?>[] methodParamTypes, Class<?>[] actualParamTypes) {
+        // 参数数量检查
+        if (methodParamTypes.length != (actualParamTypes != null ? actualParamTypes.length : 0)) {
+            return false;
+        }
+        
+        // 参数类型检查
+        for (int i = 0; i < methodParamTypes.length; i++) {
+            Class<?> methodType = methodParamTypes[i];
+            Class<?> actualType = actualParamTypes[i];
+            
+            // 对于Object类型的参数，任何类型都匹配
+            if (methodType == Object.class) {
+                continue;
+            }
+            
+            // 对于基本类型，进行装箱类型的匹配
+            if (methodType.isPrimitive()) {
+                if (!isPrimitiveMatch(methodType, actualType)) {
+                    return false;
+                }
+            } else {
+                // 检查类型兼容性（考虑继承关系）
+                if (actualType != null && !methodType.isAssignableFrom(actualType)) {
+                    return false;
+                }
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * 检查基本类型与实际类型的匹配
+     * @param primitiveType 基本类型
+     * @param actualType 实际类型
+     * @return 是否匹配
+     */
+    private static boolean isPrimitiveMatch(Class<?> primitiveType, Class<?> actualType) {
+        if (actualType == null) {
+            return false;
+        }
+        
+        if (primitiveType == int.class && (actualType == Integer.class || actualType == int.class)) {
+            return true;
+        } else if (primitiveType == long.class && (actualType == Long.class || actualType == long.class)) {
+            return true;
+        } else if (primitiveType == boolean.class && (actualType == Boolean.class || actualType == boolean.class)) {
+            return true;
+        } else if (primitiveType == double.class && (actualType == Double.class || actualType == double.class)) {
+            return true;
+        } else if (primitiveType == float.class && (actualType == Float.class || actualType == float.class)) {
+            return true;
+        } else if (primitiveType == char.class && (actualType == Character.class || actualType == char.class)) {
+            return true;
+        } else if (primitiveType == byte.class && (actualType == Byte.class || actualType == byte.class)) {
+            return true;
+        } else if (primitiveType == short.class && (actualType == Short.class || actualType == short.class)) {
+            return true;
+        }
+        
+        return false;
+    }
+    
+    
+    
+    /**
+     * 获取参数类型的字符串表示
+     * @param args 参数数组
+     * @return 参数类型字符串
+     */
+    private static String getParameterTypes(Object[] args) {
+        if (args == null || args.length == 0) {
+            return "[]";
+        }
+        return Arrays.toString(args);
+    }
+}
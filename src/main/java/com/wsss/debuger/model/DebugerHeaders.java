@@ -0,0 +1,40 @@
+package com.wsss.debuger.model;
+
+/**
+ * 调试请求使用的HTTP头常量
+ */
+public final class DebugerHeaders {
+
+    /**
+     * 握手得到的会话ID，服务端据此查找会话密钥和会话级状态（如对象字典）
+     */
+    public static final String SESSION = "X-Debuger-Session";
+
+    /**
+     * 以会话密钥计算的HMAC，覆盖请求序号、附件数量/跟踪上下文/返回值投影请求头和请求体（带附件时为整个帧），Base64编码
+     */
+    public static final String SIGNATURE = "X-Debuger-Signature";
+
+    /**
+     * 请求序号，会话内从1开始递增，参与签名计算，服务端据此拒绝重放的请求
+     */
+    public static final String SEQUENCE = "X-Debuger-Sequence";
+
+    /**
+     * 跟踪上下文，格式为 traceId-spanId，仅被采样的调用携带
+     */
+    public static final String TRACE = "X-Debuger-Trace";
+
+    /**
+     * 请求体或响应体中信封之后的带外附件数量，缺省表示没有附件
+     */
+    public static final String ATTACHMENTS = "X-Debuger-Attachments";
+
+    /**
+     * 返回值字段投影，逗号分隔的字段路径，服务端只序列化这些字段；缺省表示返回完整对象
+     */
+    public static final String PROJECTION = "X-Debuger-Projection";
+
+    private DebugerHeaders() {
+    }
+}
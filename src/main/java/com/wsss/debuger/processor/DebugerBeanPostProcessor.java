@@ -1,17 +1,24 @@
 package com.wsss.debuger.processor;
 
 import com.wsss.debuger.annotation.Debuger;
+import com.wsss.debuger.calllog.CallLog;
 import com.wsss.debuger.config.DebugerConfig;
+import com.wsss.debuger.controller.DebugerController;
+import com.wsss.debuger.hedge.Hedger;
 import com.wsss.debuger.invocation.DebugerInvocationHandler;
 import com.wsss.debuger.invocation.Proxy;
+import com.wsss.debuger.trace.Tracer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.beans.factory.BeanInitializationException;
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
 import java.util.HashSet;
@@ -30,12 +37,48 @@ public class DebugerBeanPostProcessor implements BeanPostProcessor {
 
     @Autowired
     private DebugerConfig debugerConfig;
+    @Autowired
+    private Tracer tracer;
+    @Autowired
+    private CallLog callLog;
+    @Autowired
+    private Hedger hedger;
+    @Autowired
+    private ApplicationContext applicationContext;
+    private DebugerController loopbackTarget;
+    private boolean loopbackResolved;
     private Set<String> beanNames = new HashSet<>();
 
     @Override
     public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
         return bean;
     }
+
+    /**
+     * 根据配置获取本地回环调用的目标
+     * auto时在本容器及祖先容器中查找服务端DebugerController，找到则回环调用；
+     * loopback时找不到服务端控制器直接启动失败，避免静默地退化为调用本地bean
+     * @return 服务端控制器，经HTTP调用时为null
+     */
+    private DebugerController getLoopbackTarget() {
+        if (!loopbackResolved) {
+            String transport = debugerConfig.getTransport();
+            if ("loopback".equals(transport) || "auto".equals(transport)) {
+                String[] names = BeanFactoryUtils.beanNamesForTypeIncludingAncestors(
+                        applicationContext, DebugerController.class);
+                if (names.length > 0) {
+                    loopbackTarget = BeanFactoryUtils.beanOfTypeIncludingAncestors(
+                            applicationContext, DebugerController.class);
+                } else if ("loopback".equals(transport)) {
+                    throw new BeanInitializationException(
+                            "wsss.debuger.proxy.transport=loopback，但未找到服务端DebugerController");
+                }
+            }
+            loopbackResolved = true;
+            logger.info("代理调用方式: transport={}, loopback={}", transport, loopbackTarget != null);
+        }
+        return loopbackTarget;
+    }
     
     /**
      * 检查类实现的接口上是否有Debuger注解
@@ -89,7 +132,8 @@ public class DebugerBeanPostProcessor implements BeanPostProcessor {
 
         if (needProxy) {
             logger.info("为Bean生成动态代理: beanName={}", beanName);
-            return Proxy.getProxy(bean, new DebugerInvocationHandler(beanName, debugerConfig));
+            return Proxy.getProxy(bean, new DebugerInvocationHandler(beanName, debugerConfig, tracer, callLog,
+                    getLoopbackTarget(), hedger));
         }
         
         return bean;
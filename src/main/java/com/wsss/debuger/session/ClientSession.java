@@ -0,0 +1,91 @@
+package com.wsss.debuger.session;
+
+import com.wsss.debuger.attachment.AttachmentCodec;
+import com.wsss.debuger.attachment.OutboundAttachment;
+import com.wsss.debuger.dictionary.ObjectDictionaryEncoder;
+import com.wsss.debuger.utils.HmacUtil;
+import com.wsss.debuger.utils.MacOutputStream;
+
+import javax.crypto.Mac;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 客户端会话
+ * 握手成功后生成，请求携带会话ID、请求序号和以会话密钥计算的签名（覆盖签名前缀和请求体）
+ */
+public class ClientSession {
+
+    private final String id;
+    private final byte[] key;
+    private final int protocolVersion;
+    private final String codec;
+    private final String compression;
+    // 对象字典编码器，随会话重建而重置，未启用时为null
+    private final ObjectDictionaryEncoder encoder;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public ClientSession(String id, byte[] key, int protocolVersion, String codec, String compression,
+                         ObjectDictionaryEncoder encoder) {
+        this.id = id;
+        this.key = key;
+        this.protocolVersion = protocolVersion;
+        this.codec = codec;
+        this.compression = compression;
+        this.encoder = encoder;
+    }
+
+    /**
+     * @return 下一个请求序号，每个发出的请求（包括重发和对冲请求）各取一个
+     */
+    public long nextSequence() {
+        return sequence.incrementAndGet();
+    }
+
+    /**
+     * 计算请求体签名
+     * @param prefix 签名前缀，见SessionProtocol.signedPrefix
+     * @param body 请求体
+     * @return Base64编码的签名
+     */
+    public String sign(byte[] prefix, byte[] body) {
+        return Base64.getEncoder().encodeToString(HmacUtil.hmac(key, prefix, body));
+    }
+
+    /**
+     * 计算带附件的帧签名，附件数据以流的方式参与计算
+     * @param prefix 签名前缀，见SessionProtocol.signedPrefix
+     * @param envelope 信封
+     * @param attachments 附件
+     * @return Base64编码的签名
+     * @throws IOException 读取附件失败
+     */
+    public String sign(byte[] prefix, byte[] envelope, List<OutboundAttachment> attachments) throws IOException {
+        Mac mac = HmacUtil.newMac(key);
+        mac.update(prefix);
+        AttachmentCodec.writeFrame(new MacOutputStream(mac), envelope, attachments);
+        return Base64.getEncoder().encodeToString(mac.doFinal());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    public String getCodec() {
+        return codec;
+    }
+
+    public String getCompression() {
+        return compression;
+    }
+
+    public ObjectDictionaryEncoder getEncoder() {
+        return encoder;
+    }
+}
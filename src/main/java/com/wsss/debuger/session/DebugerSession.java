@@ -0,0 +1,128 @@
+package com.wsss.debuger.session;
+
+import com.wsss.debuger.dictionary.ObjectDictionary;
+import com.wsss.debuger.utils.HmacUtil;
+
+import javax.crypto.Mac;
+import java.util.Arrays;
+
+/**
+ * 服务端会话
+ * 保存握手推导出的会话密钥、协商结果以及会话级状态
+ */
+public class DebugerSession {
+
+    // 重放窗口大小：并发请求可能乱序到达，窗口内未出现过的序号仍然接受
+    private static final int REPLAY_WINDOW = 1024;
+
+    private final String id;
+    private final byte[] key;
+    private final int protocolVersion;
+    private final String codec;
+    private final String compression;
+    private final ObjectDictionary dictionary;
+    private volatile long lastAccessTime = System.currentTimeMillis();
+    // 已接受的最大序号，及以其结尾的窗口内各序号是否已出现（按序号取模定位）
+    private long highestSequence;
+    private final long[] seenSequences = new long[REPLAY_WINDOW / 64];
+
+    public DebugerSession(String id, byte[] key, int protocolVersion, String codec, String compression,
+                          int dictionaryCapacity, long dictionaryMaxBytes) {
+        this.id = id;
+        this.key = key;
+        this.protocolVersion = protocolVersion;
+        this.codec = codec;
+        this.compression = compression;
+        this.dictionary = new ObjectDictionary(dictionaryCapacity, dictionaryMaxBytes);
+    }
+
+    /**
+     * 校验请求体签名
+     * @param prefix 签名前缀，见SessionProtocol.signedPrefix
+     * @param body 请求体
+     * @param signature 客户端签名
+     * @return 是否通过
+     */
+    public boolean verify(byte[] prefix, byte[] body, byte[] signature) {
+        return HmacUtil.verify(HmacUtil.hmac(key, prefix, body), signature);
+    }
+
+    /**
+     * @param prefix 签名前缀，见SessionProtocol.signedPrefix
+     * @return 以会话密钥初始化并已计入签名前缀的Mac，用于流式校验带附件的请求
+     */
+    public Mac newMac(byte[] prefix) {
+        Mac mac = HmacUtil.newMac(key);
+        mac.update(prefix);
+        return mac;
+    }
+
+    /**
+     * 登记签名校验通过的请求序号
+     * 序号大于已接受的最大序号，或落在窗口内且未出现过时接受；重复的序号和早于窗口的序号视为重放
+     * @param sequence 请求序号
+     * @return 是否接受
+     */
+    public synchronized boolean acceptSequence(long sequence) {
+        if (sequence <= 0 || sequence <= highestSequence - REPLAY_WINDOW) {
+            return false;
+        }
+        if (sequence > highestSequence) {
+            // 窗口前移，移出窗口的旧序号占用的位清零
+            if (sequence - highestSequence >= REPLAY_WINDOW) {
+                Arrays.fill(seenSequences, 0);
+            } else {
+                for (long s = highestSequence + 1; s < sequence; s++) {
+                    setSeen(s, false);
+                }
+            }
+            highestSequence = sequence;
+        } else if (isSeen(sequence)) {
+            return false;
+        }
+        setSeen(sequence, true);
+        return true;
+    }
+
+    private boolean isSeen(long sequence) {
+        int slot = (int) (sequence % REPLAY_WINDOW);
+        return (seenSequences[slot >>> 6] & (1L << (slot & 63))) != 0;
+    }
+
+    private void setSeen(long sequence, boolean seen) {
+        int slot = (int) (sequence % REPLAY_WINDOW);
+        if (seen) {
+            seenSequences[slot >>> 6] |= 1L << (slot & 63);
+        } else {
+            seenSequences[slot >>> 6] &= ~(1L << (slot & 63));
+        }
+    }
+
+    public void touch() {
+        lastAccessTime = System.currentTimeMillis();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    public String getCodec() {
+        return codec;
+    }
+
+    public String getCompression() {
+        return compression;
+    }
+
+    public ObjectDictionary getDictionary() {
+        return dictionary;
+    }
+
+    public long getLastAccessTime() {
+        return lastAccessTime;
+    }
+}
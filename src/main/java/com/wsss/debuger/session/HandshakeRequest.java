@@ -0,0 +1,71 @@
+package com.wsss.debuger.session;
+
+/**
+ * 握手请求
+ */
+public class HandshakeRequest {
+
+    // 客户端随机数
+    private byte[] clientNonce;
+    // 客户端时间戳，用于拒绝过期的握手证明
+    private long timestamp;
+    // 以密码计算的HMAC证明
+    private byte[] proof;
+    // 客户端支持的最高协议版本
+    private int protocolVersion;
+    // 客户端支持的编解码方式，按优先级排列
+    private String[] codecs;
+    // 客户端支持的压缩方式，按优先级排列
+    private String[] compressions;
+
+    public HandshakeRequest() {
+    }
+
+    public byte[] getClientNonce() {
+        return clientNonce;
+    }
+
+    public void setClientNonce(byte[] clientNonce) {
+        this.clientNonce = clientNonce;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public byte[] getProof() {
+        return proof;
+    }
+
+    public void setProof(byte[] proof) {
+        this.proof = proof;
+    }
+
+    public int getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    public void setProtocolVersion(int protocolVersion) {
+        this.protocolVersion = protocolVersion;
+    }
+
+    public String[] getCodecs() {
+        return codecs;
+    }
+
+    public void setCodecs(String[] codecs) {
+        this.codecs = codecs;
+    }
+
+    public String[] getCompressions() {
+        return compressions;
+    }
+
+    public void setCompressions(String[] compressions) {
+        this.compressions = compressions;
+    }
+}
@@ -0,0 +1,100 @@
+package com.wsss.debuger.session;
+
+/**
+ * 握手响应
+ */
+public class HandshakeResponse {
+
+    private boolean success;
+    private String errorMessage;
+    private String sessionId;
+    // 服务端随机数，与客户端随机数一起推导会话密钥
+    private byte[] serverNonce;
+    // 协商结果
+    private int protocolVersion;
+    private String codec;
+    private String compression;
+    // 服务端对象字典的条目数和总字节数上限，客户端据此判断哪些摘要仍被服务端持有
+    private int dictionaryCapacity;
+    private long dictionaryMaxBytes;
+
+    public HandshakeResponse() {
+    }
+
+    public HandshakeResponse(String errorMessage) {
+        this.success = false;
+        this.errorMessage = errorMessage;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public byte[] getServerNonce() {
+        return serverNonce;
+    }
+
+    public void setServerNonce(byte[] serverNonce) {
+        this.serverNonce = serverNonce;
+    }
+
+    public int getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    public void setProtocolVersion(int protocolVersion) {
+        this.protocolVersion = protocolVersion;
+    }
+
+    public String getCodec() {
+        return codec;
+    }
+
+    public void setCodec(String codec) {
+        this.codec = codec;
+    }
+
+    public String getCompression() {
+        return compression;
+    }
+
+    public void setCompression(String compression) {
+        this.compression = compression;
+    }
+
+    public int getDictionaryCapacity() {
+        return dictionaryCapacity;
+    }
+
+    public void setDictionaryCapacity(int dictionaryCapacity) {
+        this.dictionaryCapacity = dictionaryCapacity;
+    }
+
+    public long getDictionaryMaxBytes() {
+        return dictionaryMaxBytes;
+    }
+
+    public void setDictionaryMaxBytes(long dictionaryMaxBytes) {
+        this.dictionaryMaxBytes = dictionaryMaxBytes;
+    }
+}
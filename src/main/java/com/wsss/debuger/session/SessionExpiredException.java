@@ -0,0 +1,11 @@
+package com.wsss.debuger.session;
+
+/**
+ * 会话不存在或已过期，客户端收到后重新握手
+ */
+public class SessionExpiredException extends RuntimeException {
+
+    public SessionExpiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,114 @@
+package com.wsss.debuger.session;
+
+import com.wsss.debuger.config.DebugerConfig;
+import com.wsss.debuger.utils.HmacUtil;
+import com.wsss.debuger.utils.LruCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * 服务端会话管理
+ * 处理握手、保存会话，会话数超出上限时按LRU淘汰，空闲超时的会话视为过期
+ */
+@Component
+@ConditionalOnProperty(name = "wsss.debuger.mode", havingValue = "server", matchIfMissing = true)
+public class SessionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionManager.class);
+
+    @Autowired
+    private DebugerConfig debugerConfig;
+
+    private volatile LruCache<String, DebugerSession> sessions;
+
+    /**
+     * 处理握手请求
+     * @param request 握手请求
+     * @return 握手响应
+     */
+    public HandshakeResponse handshake(HandshakeRequest request) {
+        String password = debugerConfig.getPassword();
+        if (password == null || password.trim().isEmpty()) {
+            return new HandshakeResponse("服务端未配置密码，拒绝握手");
+        }
+        if (request.getClientNonce() == null || request.getClientNonce().length < SessionProtocol.NONCE_LENGTH) {
+            return new HandshakeResponse("握手随机数无效");
+        }
+        if (Math.abs(System.currentTimeMillis() - request.getTimestamp()) > SessionProtocol.MAX_CLOCK_SKEW_MILLIS) {
+            return new HandshakeResponse("握手时间戳已过期");
+        }
+        byte[] expected = SessionProtocol.proof(password, request.getClientNonce(), request.getTimestamp());
+        if (!HmacUtil.verify(expected, request.getProof())) {
+            logger.error("握手密码校验失败，拒绝请求");
+            return new HandshakeResponse("密码校验失败，请提供正确的授权信息");
+        }
+
+        // 协商协议版本、编解码和压缩方式
+        int version = Math.min(request.getProtocolVersion(), SessionProtocol.PROTOCOL_VERSION);
+        String codec = SessionProtocol.select(request.getCodecs(), SessionProtocol.CODEC_PROTOSTUFF);
+        String compression = SessionProtocol.select(request.getCompressions(), SessionProtocol.COMPRESSION_NONE);
+        if (version < 1 || codec == null || compression == null) {
+            return new HandshakeResponse("协商失败: version=" + request.getProtocolVersion()
+                    + ", codecs=" + Arrays.toString(request.getCodecs())
+                    + ", compressions=" + Arrays.toString(request.getCompressions()));
+        }
+
+        byte[] serverNonce = HmacUtil.randomBytes(SessionProtocol.NONCE_LENGTH);
+        byte[] key = SessionProtocol.sessionKey(password, request.getClientNonce(), serverNonce);
+        DebugerSession session = new DebugerSession(UUID.randomUUID().toString(), key, version, codec, compression,
+                debugerConfig.getDictionaryCapacity(), debugerConfig.getDictionaryMaxBytes());
+        getSessions().put(session.getId(), session);
+        logger.info("握手成功: sessionId={}, version={}, codec={}, compression={}",
+                session.getId(), version, codec, compression);
+
+        HandshakeResponse response = new HandshakeResponse();
+        response.setSuccess(true);
+        response.setSessionId(session.getId());
+        response.setServerNonce(serverNonce);
+        response.setProtocolVersion(version);
+        response.setCodec(codec);
+        response.setCompression(compression);
+        response.setDictionaryCapacity(debugerConfig.getDictionaryCapacity());
+        response.setDictionaryMaxBytes(debugerConfig.getDictionaryMaxBytes());
+        return response;
+    }
+
+    /**
+     * 获取会话
+     * 不刷新空闲时间，请求通过签名和序号校验后由调用方调用touch
+     * @param sessionId 会话ID
+     * @return 会话，不存在或已过期时返回null
+     */
+    public DebugerSession getSession(String sessionId) {
+        if (sessionId == null) {
+            return null;
+        }
+        DebugerSession session = getSessions().get(sessionId);
+        if (session == null) {
+            return null;
+        }
+        long timeout = debugerConfig.getSessionTimeout() * 1000L;
+        if (System.currentTimeMillis() - session.getLastAccessTime() > timeout) {
+            getSessions().remove(sessionId);
+            return null;
+        }
+        return session;
+    }
+
+    private LruCache<String, DebugerSession> getSessions() {
+        if (sessions == null) {
+            synchronized (this) {
+                if (sessions == null) {
+                    sessions = new LruCache<>(debugerConfig.getSessionCapacity());
+                }
+            }
+        }
+        return sessions;
+    }
+}
@@ -0,0 +1,82 @@
+package com.wsss.debuger.session;
+
+import com.wsss.debuger.utils.HmacUtil;
+
+/**
+ * 会话协议常量与密钥推导
+ * 握手时客户端以密码对随机数做HMAC证明身份，双方再由密码和双方随机数推导会话密钥，
+ * 之后的请求只携带会话ID和HMAC，密码不再出现在网络上。
+ * 请求的HMAC覆盖签名前缀（请求序号和影响服务端处理的请求头）以及请求体或整个帧
+ */
+public final class SessionProtocol {
+
+    public static final int PROTOCOL_VERSION = 1;
+    public static final String CODEC_PROTOSTUFF = "protostuff";
+    public static final String COMPRESSION_NONE = "none";
+
+    public static final int NONCE_LENGTH = 16;
+    // 握手时间戳允许的偏差
+    public static final long MAX_CLOCK_SKEW_MILLIS = 5 * 60 * 1000L;
+
+    private static final byte[] PROOF_LABEL = HmacUtil.bytes("debuger-handshake");
+    private static final byte[] SESSION_KEY_LABEL = HmacUtil.bytes("debuger-session");
+
+    private SessionProtocol() {
+    }
+
+    /**
+     * 客户端握手证明
+     */
+    public static byte[] proof(String password, byte[] clientNonce, long timestamp) {
+        return HmacUtil.hmac(HmacUtil.bytes(password), PROOF_LABEL, clientNonce, HmacUtil.bytes(timestamp));
+    }
+
+    /**
+     * 会话密钥
+     */
+    public static byte[] sessionKey(String password, byte[] clientNonce, byte[] serverNonce) {
+        return HmacUtil.hmac(HmacUtil.bytes(password), SESSION_KEY_LABEL, clientNonce, serverNonce);
+    }
+
+    /**
+     * 请求签名前缀：请求序号，以及附件数量、跟踪上下文、返回值投影三个请求头的原始值（缺省为空串）
+     * HTTP头的值不含换行，以换行分隔不会产生歧义
+     * @param sequence 请求序号
+     * @param attachments X-Debuger-Attachments
+     * @param trace X-Debuger-Trace
+     * @param projection X-Debuger-Projection
+     * @return 参与HMAC计算的前缀
+     */
+    public static byte[] signedPrefix(long sequence, String attachments, String trace, String projection) {
+        byte[] headers = HmacUtil.bytes((attachments != null ? attachments : "") + "\n"
+                + (trace != null ? trace : "") + "\n"
+                + (projection != null ? projection : "") + "\n");
+        byte[] prefix = new byte[8 + headers.length];
+        System.arraycopy(HmacUtil.bytes(sequence), 0, prefix, 0, 8);
+        System.arraycopy(headers, 0, prefix, 8, headers.length);
+        return prefix;
+    }
+
+    /**
+     * 从调用地址推导握手地址，如 http://host/debuger/invoke -> http://host/debuger/handshake
+     */
+    public static String handshakeUrl(String invokeUrl) {
+        int index = invokeUrl.lastIndexOf('/');
+        return (index >= 0 ? invokeUrl.substring(0, index) : invokeUrl) + "/handshake";
+    }
+
+    /**
+     * 在客户端提供的候选项中选择第一个受支持的值
+     */
+    public static String select(String[] offered, String supported) {
+        if (offered == null || offered.length == 0) {
+            return supported;
+        }
+        for (String value : offered) {
+            if (supported.equals(value)) {
+                return value;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,120 @@
+package com.wsss.debuger.trace;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 文件跨度导出器
+ * 调用线程只把跨度放入无锁队列，后台线程追加写入文件，每个跨度一行，按固定间隔和关闭时刷新；
+ * 队列满时丢弃新跨度并计数，不阻塞调用线程
+ */
+public class FileSpanExporter implements SpanExporter, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileSpanExporter.class);
+
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final BufferedWriter writer;
+    private final int capacity;
+    private final Queue<Span> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread drainer;
+    private volatile boolean running = true;
+
+    /**
+     * @param file 输出文件
+     * @param capacity 待写出跨度的上限
+     */
+    public FileSpanExporter(String file, int capacity) throws IOException {
+        this.writer = Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        this.capacity = capacity;
+        this.drainer = new Thread(this::drain, "debuger-span-exporter");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @Override
+    public void export(Span span) {
+        if (pending.incrementAndGet() > capacity) {
+            pending.decrementAndGet();
+            dropped.incrementAndGet();
+            return;
+        }
+        queue.offer(span);
+    }
+
+    /**
+     * @return 因队列满而丢弃的跨度数
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 写出线程主循环
+     */
+    private void drain() {
+        long lastFlush = System.nanoTime();
+        boolean dirty = false;
+        while (true) {
+            Span span = queue.poll();
+            if (span != null) {
+                pending.decrementAndGet();
+                try {
+                    writer.write(span.toString());
+                    writer.newLine();
+                    dirty = true;
+                } catch (IOException e) {
+                    logger.warn("写入跨度失败: {}", span, e);
+                }
+                continue;
+            }
+            // 队列暂时为空
+            if (dirty && (!running || System.nanoTime() - lastFlush >= FLUSH_INTERVAL_NANOS)) {
+                try {
+                    writer.flush();
+                } catch (IOException e) {
+                    logger.warn("刷新跨度文件失败", e);
+                }
+                dirty = false;
+                lastFlush = System.nanoTime();
+            }
+            if (!running && queue.isEmpty()) {
+                break;
+            }
+            LockSupport.parkNanos(10000000L);
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            logger.warn("关闭跨度文件失败", e);
+        }
+    }
+}
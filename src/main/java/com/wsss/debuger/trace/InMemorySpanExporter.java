@@ -0,0 +1,40 @@
+package com.wsss.debuger.trace;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 内存跨度导出器
+ * 保留最近的若干跨度，超出容量时丢弃最旧的
+ */
+public class InMemorySpanExporter implements SpanExporter {
+
+    private final int capacity;
+    private final Deque<Span> spans;
+
+    public InMemorySpanExporter(int capacity) {
+        this.capacity = capacity;
+        this.spans = new ArrayDeque<>(Math.min(capacity, 1024));
+    }
+
+    @Override
+    public synchronized void export(Span span) {
+        if (spans.size() >= capacity) {
+            spans.pollFirst();
+        }
+        spans.addLast(span);
+    }
+
+    /**
+     * @return 当前保留的跨度快照
+     */
+    public synchronized List<Span> getSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    public synchronized void clear() {
+        spans.clear();
+    }
+}
@@ -0,0 +1,75 @@
+package com.wsss.debuger.trace;
+
+/**
+ * 已结束的跨度
+ */
+public class Span {
+
+    private final long traceId;
+    private final long spanId;
+    // 父跨度ID，根跨度为0
+    private final long parentId;
+    // 阶段名称，如 client.invoke、server.execute
+    private final String name;
+    // 被调用的 beanName.methodName，解码完成前未知时为null
+    private final String resource;
+    private final long startEpochMicros;
+    private final long durationNanos;
+    private final String error;
+
+    public Span(long traceId, long spanId, long parentId, String name, String resource,
+                long startEpochMicros, long durationNanos, String error) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentId = parentId;
+        this.name = name;
+        this.resource = resource;
+        this.startEpochMicros = startEpochMicros;
+        this.durationNanos = durationNanos;
+        this.error = error;
+    }
+
+    public long getTraceId() {
+        return traceId;
+    }
+
+    public long getSpanId() {
+        return spanId;
+    }
+
+    public long getParentId() {
+        return parentId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getResource() {
+        return resource;
+    }
+
+    public long getStartEpochMicros() {
+        return startEpochMicros;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "traceId=" + Long.toHexString(traceId)
+                + " spanId=" + Long.toHexString(spanId)
+                + " parentId=" + Long.toHexString(parentId)
+                + " name=" + name
+                + " resource=" + resource
+                + " start=" + startEpochMicros
+                + " durationUs=" + durationNanos / 1000
+                + (error != null ? " error=" + error : "");
+    }
+}
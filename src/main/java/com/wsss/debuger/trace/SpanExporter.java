@@ -0,0 +1,14 @@
+package com.wsss.debuger.trace;
+
+/**
+ * 跨度导出SPI
+ * 在Spring容器中声明该类型的Bean即可替换内置导出器
+ */
+public interface SpanExporter {
+
+    /**
+     * 导出已结束的跨度，只会对被采样的调用触发
+     * @param span 跨度
+     */
+    void export(Span span);
+}
@@ -0,0 +1,54 @@
+package com.wsss.debuger.trace;
+
+/**
+ * 跟踪上下文
+ * 只有被采样的调用才会创建，未采样时以null表示，调用路径上不产生任何分配
+ */
+public class TraceContext {
+
+    private static final char SEPARATOR = '-';
+
+    private final long traceId;
+    private final long spanId;
+
+    public TraceContext(long traceId, long spanId) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+    }
+
+    public long getTraceId() {
+        return traceId;
+    }
+
+    public long getSpanId() {
+        return spanId;
+    }
+
+    /**
+     * 编码为请求头，格式为 traceId-spanId（十六进制）
+     */
+    public String toHeader() {
+        return Long.toHexString(traceId) + SEPARATOR + Long.toHexString(spanId);
+    }
+
+    /**
+     * 解析请求头
+     * @param header 请求头
+     * @return 跟踪上下文，未携带或格式错误时返回null
+     */
+    public static TraceContext fromHeader(String header) {
+        if (header == null) {
+            return null;
+        }
+        int index = header.indexOf(SEPARATOR);
+        if (index <= 0) {
+            return null;
+        }
+        try {
+            return new TraceContext(Long.parseUnsignedLong(header.substring(0, index), 16),
+                    Long.parseUnsignedLong(header.substring(index + 1), 16));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.wsss.debuger.trace;
+
+import com.wsss.debuger.config.DebugerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 代理调用的分布式跟踪
+ * 客户端在调用入口按采样率做头部采样，采样结果通过请求头传递给服务端；
+ * 未采样的调用上下文为null，所有记录方法直接返回，不产生分配
+ */
+@Component
+public class Tracer {
+
+    private static final Logger logger = LoggerFactory.getLogger(Tracer.class);
+
+    @Autowired
+    private DebugerConfig debugerConfig;
+
+    @Autowired(required = false)
+    private SpanExporter exporter;
+
+    private double sampleRate;
+
+    @PostConstruct
+    public void init() throws IOException {
+        sampleRate = debugerConfig.getTraceSampleRate();
+        if (exporter == null) {
+            if ("file".equals(debugerConfig.getTraceExporter())) {
+                exporter = new FileSpanExporter(debugerConfig.getTraceFile(), debugerConfig.getTraceBufferSize());
+            } else {
+                exporter = new InMemorySpanExporter(debugerConfig.getTraceMemoryCapacity());
+            }
+        }
+        logger.info("跟踪已初始化: sampleRate={}, exporter={}", sampleRate, exporter.getClass().getSimpleName());
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (exporter instanceof Closeable) {
+            ((Closeable) exporter).close();
+        }
+    }
+
+    /**
+     * 开始新的跟踪
+     * @return 被采样时返回根跨度的上下文，否则返回null
+     */
+    public TraceContext startTrace() {
+        if (sampleRate <= 0) {
+            return null;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (sampleRate < 1 && random.nextDouble() >= sampleRate) {
+            return null;
+        }
+        return new TraceContext(random.nextLong(), random.nextLong());
+    }
+
+    /**
+     * 结束根跨度
+     * @param context 跟踪上下文，为null时不做任何事
+     * @param name 阶段名称
+     * @param beanName bean名称
+     * @param methodName 方法名
+     * @param startNanos System.nanoTime()记录的开始时间
+     * @param error 异常，可为null
+     */
+    public void finish(TraceContext context, String name, String beanName, String methodName,
+                       long startNanos, Throwable error) {
+        if (context == null) {
+            return;
+        }
+        export(context.getTraceId(), context.getSpanId(), 0, name, beanName, methodName, startNanos, error);
+    }
+
+    /**
+     * 记录远端跨度的子跨度
+     * @param parent 来自请求头的上下文，为null时不做任何事
+     * @param name 阶段名称
+     * @param beanName bean名称，可为null
+     * @param methodName 方法名，可为null
+     * @param startNanos System.nanoTime()记录的开始时间
+     * @param error 异常，可为null
+     */
+    public void record(TraceContext parent, String name, String beanName, String methodName,
+                       long startNanos, Throwable error) {
+        if (parent == null) {
+            return;
+        }
+        export(parent.getTraceId(), ThreadLocalRandom.current().nextLong(), parent.getSpanId(),
+                name, beanName, methodName, startNanos, error);
+    }
+
+    public SpanExporter getExporter() {
+        return exporter;
+    }
+
+    private void export(long traceId, long spanId, long parentId, String name, String beanName, String methodName,
+                        long startNanos, Throwable error) {
+        long duration = System.nanoTime() - startNanos;
+        long startEpochMicros = System.currentTimeMillis() * 1000 - duration / 1000;
+        String resource = beanName != null ? beanName + "." + methodName : null;
+        try {
+            exporter.export(new Span(traceId, spanId, parentId, name, resource, startEpochMicros, duration,
+                    error != null ? error.getClass().getName() + ": " + error.getMessage() : null));
+        } catch (Exception e) {
+            logger.warn("导出跨度失败: {}", name, e);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.wsss.debuger.utils;
+
+import org.springframework.objenesis.Objenesis;
+import org.springframework.objenesis.ObjenesisStd;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于字段结构的深拷贝
+ * 按类缓存需要复制的字段，直接在对象之间复制而不经过字节序列化；
+ * 与protostuff序列化保持一致：跳过static和transient字段，不可变类型直接共享引用。
+ * 无法反射访问的JDK内部类型退回protostuff序列化往返
+ */
+public class DeepCopyUtil {
+
+    private static final Map<Class, Field[]> cache = new ConcurrentHashMap<>();
+    private static final Set<Class> immutables = new HashSet<>();
+    private static Objenesis objenesis = new ObjenesisStd(true);
+
+    static {
+        immutables.add(String.class);
+        immutables.add(Boolean.class);
+        immutables.add(Character.class);
+        immutables.add(Byte.class);
+        immutables.add(Short.class);
+        immutables.add(Integer.class);
+        immutables.add(Long.class);
+        immutables.add(Float.class);
+        immutables.add(Double.class);
+        immutables.add(BigInteger.class);
+        immutables.add(BigDecimal.class);
+        immutables.add(Class.class);
+    }
+
+    /**
+     * 深拷贝对象，保留对象图中的共享引用和循环引用
+     *
+     * @param obj
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T copy(T obj) {
+        return (T) copy(obj, new IdentityHashMap<>());
+    }
+
+    private static Object copy(Object obj, Map<Object, Object> copied) {
+        if (obj == null) {
+            return null;
+        }
+        Class<?> clazz = obj.getClass();
+        if (isImmutable(clazz)) {
+            return obj;
+        }
+        Object existing = copied.get(obj);
+        if (existing != null) {
+            return existing;
+        }
+        if (clazz.isArray()) {
+            return copyArray(obj, clazz, copied);
+        }
+        if (obj instanceof Collection) {
+            return copyCollection((Collection<?>) obj, copied);
+        }
+        if (obj instanceof Map) {
+            return copyMap((Map<?, ?>) obj, copied);
+        }
+        if (obj instanceof ByteBuffer) {
+            ByteBuffer source = ((ByteBuffer) obj).duplicate();
+            ByteBuffer result = ByteBuffer.allocate(source.remaining());
+            result.put(source).flip();
+            copied.put(obj, result);
+            return result;
+        }
+        if (obj instanceof InputStream) {
+            // 流无法在不消费的情况下复制，直接传递
+            return obj;
+        }
+        if (clazz.getName().startsWith("java.")) {
+            // 其余JDK类型的内部字段不保证可访问
+            return roundTrip(obj, copied);
+        }
+        return copyObject(obj, clazz, copied);
+    }
+
+    /**
+     * @return 该类型的对象是否不可变，可以直接共享引用
+     */
+    public static boolean isImmutable(Class<?> clazz) {
+        return immutables.contains(clazz) || clazz.isEnum()
+                || (clazz.getSuperclass() != null && clazz.getSuperclass().isEnum())
+                || clazz.getName().startsWith("java.time.")
+                || File.class.isAssignableFrom(clazz) || Path.class.isAssignableFrom(clazz);
+    }
+
+    private static Object copyArray(Object array, Class<?> clazz, Map<Object, Object> copied) {
+        int length = Array.getLength(array);
+        Class<?> componentType = clazz.getComponentType();
+        if (componentType.isPrimitive()) {
+            Object result = Array.newInstance(componentType, length);
+            System.arraycopy(array, 0, result, 0, length);
+            copied.put(array, result);
+            return result;
+        }
+        Object[] source = (Object[]) array;
+        Object[] result = (Object[]) Array.newInstance(componentType, length);
+        copied.put(array, result);
+        for (int i = 0; i < length; i++) {
+            result[i] = copy(source[i], copied);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object copyCollection(Collection<?> collection, Map<Object, Object> copied) {
+        Collection<Object> result = collection instanceof SortedSet
+                ? newSorted(collection.getClass(), ((SortedSet<?>) collection).comparator())
+                : newInstance(collection.getClass());
+        if (result == null) {
+            // 无法创建同类型容器（如EnumSet、不可变集合），按序列化往返复制，不替换为其他类型
+            return roundTrip(collection, copied);
+        }
+        copied.put(collection, result);
+        for (Object element : collection) {
+            result.add(copy(element, copied));
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object copyMap(Map<?, ?> map, Map<Object, Object> copied) {
+        Map<Object, Object> result = map instanceof SortedMap
+                ? newSorted(map.getClass(), ((SortedMap<?, ?>) map).comparator())
+                : newInstance(map.getClass());
+        if (result == null) {
+            // 无法创建同类型容器（如EnumMap、不可变Map），按序列化往返复制，不替换为其他类型
+            return roundTrip(map, copied);
+        }
+        copied.put(map, result);
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            result.put(copy(entry.getKey(), copied), copy(entry.getValue(), copied));
+        }
+        return result;
+    }
+
+    private static Object roundTrip(Object obj, Map<Object, Object> copied) {
+        Object value = ProtoStuffUtil.deserializeValue(ProtoStuffUtil.serializeValue(obj));
+        copied.put(obj, value);
+        return value;
+    }
+
+    /**
+     * 通过接收Comparator的构造器创建同类型有序容器，不可用时返回null
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T newSorted(Class<?> clazz, Comparator<?> comparator) {
+        if (comparator == null) {
+            return newInstance(clazz);
+        }
+        try {
+            return (T) clazz.getConstructor(Comparator.class).newInstance(comparator);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 通过无参构造器创建同类型容器，不可用时（如不可变集合、无无参构造器）返回null
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T newInstance(Class<?> clazz) {
+        if (clazz.getName().startsWith("java.util.Collections$")
+                || clazz.getName().startsWith("java.util.ImmutableCollections$")
+                || clazz.getName().startsWith("java.util.Arrays$")) {
+            return null;
+        }
+        try {
+            return (T) clazz.getConstructor().newInstance();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static Object copyObject(Object obj, Class<?> clazz, Map<Object, Object> copied) {
+        Object result = objenesis.newInstance(clazz);
+        copied.put(obj, result);
+        try {
+            for (Field field : getFields(clazz)) {
+                if (field.getType().isPrimitive()) {
+                    field.set(result, field.get(obj));
+                } else {
+                    field.set(result, copy(field.get(obj), copied));
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Failed to copy " + clazz.getName(), e);
+        }
+        return result;
+    }
+
+    static Field[] getFields(Class<?> clazz) {
+        Field[] fields = cache.get(clazz);
+        if (fields == null) {
+            fields = cache.computeIfAbsent(clazz, DeepCopyUtil::collectFields);
+        }
+        return fields;
+    }
+
+    private static Field[] collectFields(Class<?> clazz) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+                    continue;
+                }
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+        return fields.toArray(new Field[0]);
+    }
+}
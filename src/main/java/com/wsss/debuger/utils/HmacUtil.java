@@ -0,0 +1,93 @@
+package com.wsss.debuger.utils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+/**
+ * HMAC-SHA256工具类
+ */
+public class HmacUtil {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final SecureRandom random = new SecureRandom();
+    private static final ThreadLocal<Mac> threadLocal = new ThreadLocal<Mac>() {
+        @Override
+        protected Mac initialValue() {
+            try {
+                return Mac.getInstance(ALGORITHM);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    /**
+     * 计算HMAC
+     *
+     * @param key 密钥
+     * @param parts 依次参与计算的数据
+     * @return
+     */
+    public static byte[] hmac(byte[] key, byte[]... parts) {
+        Mac mac = threadLocal.get();
+        try {
+            mac.init(new SecretKeySpec(key, ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+        for (byte[] part : parts) {
+            mac.update(part);
+        }
+        return mac.doFinal();
+    }
+
+    /**
+     * 创建已初始化的Mac实例，用于流式计算
+     *
+     * @param key 密钥
+     * @return
+     */
+    public static Mac newMac(byte[] key) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(key, ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 常数时间比较，避免计时侧信道
+     *
+     * @param expected
+     * @param actual
+     * @return
+     */
+    public static boolean verify(byte[] expected, byte[] actual) {
+        return expected != null && actual != null && MessageDigest.isEqual(expected, actual);
+    }
+
+    public static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] bytes(long value) {
+        byte[] result = new byte[8];
+        for (int i = 7; i >= 0; i--) {
+            result[i] = (byte) value;
+            value >>>= 8;
+        }
+        return result;
+    }
+
+    public static byte[] randomBytes(int length) {
+        byte[] result = new byte[length];
+        random.nextBytes(result);
+        return result;
+    }
+}
@@ -0,0 +1,94 @@
+package com.wsss.debuger.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * 线程安全的定长LRU缓存
+ * 超出容量时淘汰最久未访问的条目；指定权重上限时，总权重超出上限同样按LRU淘汰
+ */
+public class LruCache<K, V> {
+
+    private final Map<K, V> map;
+    private final long maxWeight;
+    private final ToLongFunction<? super V> weigher;
+    private long weight;
+
+    public LruCache(final int capacity) {
+        this(capacity, Long.MAX_VALUE, value -> 0);
+    }
+
+    /**
+     * @param capacity 最大条目数
+     * @param maxWeight 总权重上限，单个条目超出上限时不会被缓存
+     * @param weigher 条目权重计算
+     */
+    public LruCache(final int capacity, long maxWeight, ToLongFunction<? super V> weigher) {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.map = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > capacity) {
+                    weight -= weigher.applyAsLong(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        return map.get(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        if (weigher.applyAsLong(value) > maxWeight) {
+            // 单个条目超出上限，不缓存也不淘汰其他条目
+            remove(key);
+            return;
+        }
+        V old = map.put(key, value);
+        if (old != null) {
+            weight -= weigher.applyAsLong(old);
+        }
+        weight += weigher.applyAsLong(value);
+        trim();
+    }
+
+    public synchronized V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        boolean present = map.containsKey(key);
+        V value = map.computeIfAbsent(key, mappingFunction);
+        if (!present && value != null) {
+            weight += weigher.applyAsLong(value);
+            trim();
+        }
+        return value;
+    }
+
+    public synchronized V remove(K key) {
+        V old = map.remove(key);
+        if (old != null) {
+            weight -= weigher.applyAsLong(old);
+        }
+        return old;
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    /**
+     * 按访问顺序淘汰条目直到总权重不超过上限
+     */
+    private void trim() {
+        Iterator<V> it = map.values().iterator();
+        while (weight > maxWeight && it.hasNext()) {
+            weight -= weigher.applyAsLong(it.next());
+            it.remove();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.wsss.debuger.utils;
+
+import javax.crypto.Mac;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 读取时同步计算HMAC的输入流，用于校验流式接收的请求体
+ */
+public class MacInputStream extends FilterInputStream {
+
+    private final Mac mac;
+
+    public MacInputStream(InputStream in, Mac mac) {
+        super(in);
+        this.mac = mac;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b != -1) {
+            mac.update((byte) b);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n > 0) {
+            mac.update(b, off, n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        throw new IOException("skip is not supported");
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
@@ -0,0 +1,26 @@
+package com.wsss.debuger.utils;
+
+import javax.crypto.Mac;
+import java.io.OutputStream;
+
+/**
+ * 只计算HMAC、不输出数据的输出流，用于在发送前对流式请求体签名
+ */
+public class MacOutputStream extends OutputStream {
+
+    private final Mac mac;
+
+    public MacOutputStream(Mac mac) {
+        this.mac = mac;
+    }
+
+    @Override
+    public void write(int b) {
+        mac.update((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        mac.update(b, off, len);
+    }
+}
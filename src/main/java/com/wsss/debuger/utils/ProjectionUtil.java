@@ -0,0 +1,156 @@
+package com.wsss.debuger.utils;
+
+import org.springframework.objenesis.Objenesis;
+import org.springframework.objenesis.ObjenesisStd;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 返回值字段投影
+ * 按字段路径构建只包含被投影字段的精简副本，未投影的字段保持默认值，不进入序列化结果。
+ * 只遍历路径上的字段，叶子字段直接共享引用；与DeepCopyUtil使用同一套字段规则。
+ * Set元素和Map的键参与equals/hashCode，裁剪后可能相互冲突，保持原样不做投影
+ */
+public class ProjectionUtil {
+
+    private static final LruCache<String, Node> projections = new LruCache<>(256);
+    private static Objenesis objenesis = new ObjenesisStd(true);
+
+    /**
+     * 按投影对返回值裁剪
+     *
+     * @param obj 返回值
+     * @param projection 逗号分隔的字段路径，为空时原样返回
+     * @return 裁剪后的副本
+     */
+    public static Object project(Object obj, String projection) {
+        if (obj == null || projection == null || projection.trim().isEmpty()) {
+            return obj;
+        }
+        return project(obj, projections.computeIfAbsent(projection, ProjectionUtil::parse));
+    }
+
+    private static Node parse(String projection) {
+        Node root = new Node();
+        for (String path : projection.split(",")) {
+            Node node = root;
+            for (String name : path.trim().split("\\.")) {
+                if (!name.isEmpty()) {
+                    node = node.children.computeIfAbsent(name, k -> new Node());
+                }
+            }
+        }
+        return root;
+    }
+
+    private static Object project(Object obj, Node node) {
+        if (obj == null || node.children.isEmpty()) {
+            return obj;
+        }
+        Class<?> clazz = obj.getClass();
+        if (DeepCopyUtil.isImmutable(clazz)) {
+            return obj;
+        }
+        if (clazz.isArray()) {
+            return projectArray(obj, clazz, node);
+        }
+        if (obj instanceof Collection) {
+            return obj instanceof Set ? obj : projectCollection((Collection<?>) obj, node);
+        }
+        if (obj instanceof Map) {
+            return projectMap((Map<?, ?>) obj, node);
+        }
+        if (clazz.getName().startsWith("java.")) {
+            return obj;
+        }
+        return projectObject(obj, clazz, node);
+    }
+
+    private static Object projectArray(Object array, Class<?> clazz, Node node) {
+        if (clazz.getComponentType().isPrimitive()) {
+            return array;
+        }
+        Object[] source = (Object[]) array;
+        Object[] result = (Object[]) Array.newInstance(clazz.getComponentType(), source.length);
+        for (int i = 0; i < source.length; i++) {
+            result[i] = project(source[i], node);
+        }
+        return result;
+    }
+
+    private static Object projectCollection(Collection<?> collection, Node node) {
+        Collection<Object> result = DeepCopyUtil.newInstance(collection.getClass());
+        if (result == null) {
+            // 无法创建同类型容器时不做投影，避免替换为其他类型
+            return collection;
+        }
+        for (Object element : collection) {
+            result.add(project(element, node));
+        }
+        return result;
+    }
+
+    private static Object projectMap(Map<?, ?> map, Node node) {
+        Map<Object, Object> result = map instanceof SortedMap
+                ? DeepCopyUtil.newSorted(map.getClass(), ((SortedMap<?, ?>) map).comparator())
+                : DeepCopyUtil.newInstance(map.getClass());
+        if (result == null) {
+            // 无法创建同类型容器（如EnumMap、不可变Map）时不做投影，避免替换为其他类型
+            return map;
+        }
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            result.put(entry.getKey(), project(entry.getValue(), node));
+        }
+        return result;
+    }
+
+    private static Object projectObject(Object obj, Class<?> clazz, Node node) {
+        Object result = objenesis.newInstance(clazz);
+        try {
+            for (Field field : node.fields(clazz)) {
+                Object value = field.get(obj);
+                field.set(result, field.getType().isPrimitive() ? value : project(value, node.children.get(field.getName())));
+            }
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Failed to project " + clazz.getName(), e);
+        }
+        return result;
+    }
+
+    /**
+     * 投影路径树的节点，没有子节点表示保留整个字段
+     */
+    private static class Node {
+
+        private final Map<String, Node> children = new LinkedHashMap<>();
+        // 按类缓存该节点下被投影的字段，不存在的字段名被忽略
+        private final Map<Class, Field[]> fields = new ConcurrentHashMap<>();
+
+        private Field[] fields(Class<?> clazz) {
+            Field[] result = fields.get(clazz);
+            if (result == null) {
+                result = fields.computeIfAbsent(clazz, this::collectFields);
+            }
+            return result;
+        }
+
+        private Field[] collectFields(Class<?> clazz) {
+            List<Field> result = new ArrayList<>(children.size());
+            for (Field field : DeepCopyUtil.getFields(clazz)) {
+                if (children.containsKey(field.getName())) {
+                    result.add(field);
+                }
+            }
+            return result.toArray(new Field[0]);
+        }
+    }
+}
@@ -127,6 +127,27 @@ public class ProtoStuffUtil {
         return instance;
     }
 
+    /**
+     * 序列化任意类型的值
+     * 值被包装在持有者对象中，因此String、集合、数组等非POJO类型也可以单独序列化
+     *
+     * @param value
+     * @return
+     */
+    public static byte[] serializeValue(Object value) {
+        return serialize(new ValueHolder(value));
+    }
+
+    /**
+     * 反序列化由serializeValue生成的数据
+     *
+     * @param paramArrayOfByte
+     * @return
+     */
+    public static Object deserializeValue(byte[] paramArrayOfByte) {
+        return deserialize(paramArrayOfByte, ValueHolder.class).value;
+    }
+
     /**
      * 序列化列表
      *
@@ -188,4 +209,15 @@ public class ProtoStuffUtil {
         }
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * 单值持有者，借助Object字段的多态编码携带值的类型信息
+     */
+    private static class ValueHolder {
+        private Object value;
+
+        ValueHolder(Object value) {
+            this.value = value;
+        }
+    }
+}